@@ -0,0 +1,87 @@
+/*
+ * The AutoSaver class writes autosaves on a background thread so the game loop
+ * never waits for the disk. The game thread decides when a save is due, takes a
+ * consistent snapshot with SaveGame.write (a byte[] that no longer refers to the
+ * session) and hands it over; the writer thread then replaces the autosave file
+ * atomically. If saves come in faster than the disk keeps up, only the newest
+ * one is written. A failed write is kept until the game thread takes it with
+ * takeError, so the player hears about it on their next turn.
+ * */
+
+package model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AutoSaver implements AutoCloseable {
+    public static final String DEFAULT_FILE_NAME = "autosave.sav";
+    public static final long DEFAULT_INTERVAL_MILLIS = 30_000;
+
+    private final Path path;
+    private final long intervalNanos;
+    private final ExecutorService writer;
+    private final AtomicReference<byte[]> pending = new AtomicReference<>(); // Newest save not yet written
+    private long lastSubmitted = System.nanoTime(); // Only used by the game thread
+    private final AtomicReference<IOException> unreportedError = new AtomicReference<>(); // Not yet taken
+
+    public AutoSaver(Path path, long intervalMillis) {
+        this.path = path;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Method to check whether the interval has passed since the last autosave
+    public boolean isDue() {
+        return System.nanoTime() - lastSubmitted >= intervalNanos;
+    }
+
+    // Method to queue a serialized game for writing; returns at once
+    public void submit(byte[] data) {
+        lastSubmitted = System.nanoTime();
+        if (pending.getAndSet(data) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    // Method to get the path autosaves are written to
+    public Path getPath() {
+        return path;
+    }
+
+    // Method to get the error from a failed write that has not been reported yet, or null;
+    // each failure is handed out once
+    public IOException takeError() {
+        return unreportedError.getAndSet(null);
+    }
+
+    // Method to finish writing any queued save and stop the writer thread
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writePending() {
+        byte[] data = pending.getAndSet(null);
+        if (data == null) {
+            return;
+        }
+        try {
+            SaveGame.writeFile(path, data);
+        } catch (IOException e) {
+            unreportedError.set(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * The CombatKernel class plays one fight between Alice and a monster using the same
+ * CombatRules as the game, without any I/O and without allocating. Alice attacks with
+ * her weapon and heals (best item first, like Player.heal) whenever the monster's
+ * strongest hit could kill her. By default the monster always hits for its flat attack
+ * power, as Monster.attack does in live fights. With critical hits turned on (a
+ * what-if for balancing, not the live rule) each hit is rolled against the monster's
+ * threshold from the kernel's own GameRandom, which is reseeded per fight so every
+ * fight is reproducible on its own.
+ * */
+
+package simulation;
+
+import model.CombatRules;
+import model.GameRandom;
+
+public class CombatKernel {
+    public static final int MAX_TURNS = 1000;
+
+    private final GameRandom random = new GameRandom(0);
+    private boolean criticalHits; // Roll monster hits against their threshold (live fights never do)
+
+    // Results of the last fight
+    private boolean won;
+    private int turns;
+    private int healthRemaining;
+
+    // Method to turn the threshold roll on monster hits on or off (off matches the live game)
+    public void setCriticalHits(boolean criticalHits) {
+        this.criticalHits = criticalHits;
+    }
+
+    // Method to fight one monster; healPoints must be sorted from best to worst
+    public void fight(long seed, int playerHealth, int weaponAttackPoints, int[] healPoints,
+            int monsterHealth, int monsterAttackPower, int monsterDefense) {
+        random.setState(seed);
+        int damage = CombatRules.damageToMonster(CombatRules.playerDamage(weaponAttackPoints), monsterDefense);
+        int worstHit = criticalHits ? monsterAttackPower * 2 : monsterAttackPower;
+        int nextHeal = 0;
+
+        won = false;
+        turns = 0;
+        while (turns < MAX_TURNS) {
+            turns++;
+            if (playerHealth <= worstHit && monsterHealth > damage && nextHeal < healPoints.length) {
+                playerHealth += healPoints[nextHeal++];
+            } else {
+                monsterHealth -= damage;
+                if (monsterHealth <= 0) {
+                    won = true;
+                    break;
+                }
+            }
+
+            int roll = criticalHits ? random.nextInt(CombatRules.ROLL_RANGE) : CombatRules.ROLL_RANGE;
+            playerHealth -= CombatRules.monsterDamage(monsterAttackPower, monsterDefense, roll); // Threshold = defense
+            if (playerHealth <= 0) {
+                playerHealth = 0;
+                break;
+            }
+        }
+        healthRemaining = playerHealth;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public int getHealthRemaining() {
+        return healthRemaining;
+    }
+}
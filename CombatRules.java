@@ -0,0 +1,29 @@
+/*
+ * The CombatRules class holds the combat formulas as pure functions, so the live
+ * game (Player, Monster, GameController) and the combat simulator always agree.
+ * */
+
+package model;
+
+public final class CombatRules {
+    public static final int UNARMED_DAMAGE = 10; // Damage dealt without an equipped weapon
+    public static final int ROLL_RANGE = 100;    // Rolls are in [0, ROLL_RANGE)
+
+    private CombatRules() {
+    }
+
+    // Damage the player deals with a weapon of the given attack points (0 = unarmed)
+    public static int playerDamage(int weaponAttackPoints) {
+        return weaponAttackPoints > 0 ? weaponAttackPoints : UNARMED_DAMAGE;
+    }
+
+    // Damage a monster actually takes after its defense; always at least 1
+    public static int damageToMonster(int damage, int defense) {
+        return Math.max(damage - defense, 1);
+    }
+
+    // Damage a monster hits for on a roll: a roll below its threshold is a double hit
+    public static int monsterDamage(int attackPower, int threshold, int roll) {
+        return roll < threshold ? attackPower * 2 : attackPower;
+    }
+}
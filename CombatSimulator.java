@@ -0,0 +1,204 @@
+/*
+ * The CombatSimulator class runs Monte Carlo combat balance simulations. For every
+ * monster in the world and every loadout (each weapon, or none, with or without all
+ * of the world's healing items) it plays many fights on a CombatKernel and reports the
+ * win rate and the distributions of turns taken and health remaining.
+ *
+ * Fights are spread over a fork-join pool in fixed-size chunks. Every fight's seed is
+ * derived from the base seed and the fight's own position, and the chunk results are
+ * whole-number counts, so the report is identical for a given seed no matter how many
+ * threads are used.
+ *
+ * Fights follow the live game's rules, where a monster always hits for its attack
+ * power. Those rules roll no dice, so every fight of a combination goes the same way:
+ * the simulator then plays a single fight per combination and says so. With --crits,
+ * monster hits are instead rolled against the monster's threshold and a roll below it
+ * hits twice as hard (CombatRules.monsterDamage), to try out critical hits before they
+ * are added to the game; only then are fightsPerCombination fights played.
+ *
+ * Usage: java simulation.CombatSimulator [--crits] [fightsPerCombination] [seed] [threads]
+ * Run it from the folder that holds Map.txt, Item.txt, Puzzle.txt and Monsters.txt.
+ * */
+
+package simulation;
+
+import model.GameMap;
+import model.GameRandom;
+import model.InvalidRoomException;
+import model.Item;
+import model.Monster;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class CombatSimulator {
+    public static final int STARTING_HEALTH = 100;
+    private static final int CHUNK_SIZE = 16_384;
+
+    // One weapon plus a set of healing items (sorted from best to worst)
+    private static class Loadout {
+        private final String name;
+        private final int weaponAttackPoints;
+        private final int[] healPoints;
+
+        Loadout(String name, int weaponAttackPoints, int[] healPoints) {
+            this.name = name;
+            this.weaponAttackPoints = weaponAttackPoints;
+            this.healPoints = healPoints;
+        }
+    }
+
+    // Whole-number results of a batch of fights; merging is order-independent
+    private static class Stats {
+        private long fights;
+        private long wins;
+        private final long[] turns = new long[CombatKernel.MAX_TURNS + 1];
+        private final long[] healthRemaining;
+
+        Stats(int maxHealth) {
+            healthRemaining = new long[maxHealth + 1];
+        }
+
+        Stats merge(Stats other) {
+            fights += other.fights;
+            wins += other.wins;
+            for (int i = 0; i < turns.length; i++) {
+                turns[i] += other.turns[i];
+            }
+            for (int i = 0; i < healthRemaining.length; i++) {
+                healthRemaining[i] += other.healthRemaining[i];
+            }
+            return this;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InvalidRoomException, InterruptedException,
+            ExecutionException {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        boolean criticalHits = options.remove("--crits");
+        int fights = options.size() > 0 ? Integer.parseInt(options.get(0)) : 1_000_000;
+        if (!criticalHits) {
+            fights = 1; // The live rules are deterministic, so more fights would only repeat this one
+        }
+        long seed = options.size() > 1 ? Long.parseLong(options.get(1)) : 42L;
+        int threads = options.size() > 2 ? Integer.parseInt(options.get(2)) : Runtime.getRuntime().availableProcessors();
+
+        GameMap world = GameMap.load("Map.txt", "Item.txt", "Puzzle.txt", "Monsters.txt");
+        List<Monster> monsters = new ArrayList<>(world.getMonsterCatalog().values());
+        monsters.sort((a, b) -> a.getName().compareTo(b.getName()));
+        List<Loadout> loadouts = buildLoadouts(world);
+
+        if (criticalHits) {
+            System.out.printf("%,d fights per combination, seed %d, %d threads, critical monster hits (--crits)%n",
+                    fights, seed, threads);
+        } else {
+            System.out.println("1 fight per combination: flat monster hits (live rules) roll no dice, so every fight "
+                    + "goes the same way; use --crits for a spread");
+        }
+        System.out.printf("%-18s %-28s %7s %7s %5s %5s %8s %5s %5s %5s%n", "monster", "loadout", "win%",
+                "turns", "p50", "p90", "hpLeft", "p10", "p50", "p90");
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long checksum = 0;
+        long start = System.nanoTime();
+        int combination = 0;
+        for (Monster monster : monsters) {
+            for (Loadout loadout : loadouts) {
+                Stats stats = simulate(pool, seed, combination++, fights, monster, loadout, criticalHits);
+                checksum = GameRandom.mix(checksum ^ stats.wins) ^ Arrays.hashCode(stats.turns)
+                        ^ Arrays.hashCode(stats.healthRemaining);
+                report(monster, loadout, stats);
+            }
+        }
+        pool.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = (long) combination * fights;
+        System.out.printf("%,d fights in %.2f s (%,.0f fights/s), checksum %016x%n", total, seconds,
+                total / seconds, checksum);
+    }
+
+    // Method to run every fight of one monster/loadout combination
+    private static Stats simulate(ForkJoinPool pool, long seed, int combination, int fights, Monster monster,
+            Loadout loadout, boolean criticalHits) throws InterruptedException, ExecutionException {
+        int maxHealth = STARTING_HEALTH + IntStream.of(loadout.healPoints).sum();
+        int chunks = (fights + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long combinationSeed = GameRandom.mix(seed ^ GameRandom.mix(combination));
+
+        return pool.submit(() -> IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            CombatKernel kernel = new CombatKernel();
+            kernel.setCriticalHits(criticalHits);
+            Stats stats = new Stats(maxHealth);
+            int end = Math.min(fights, (chunk + 1) * CHUNK_SIZE);
+            for (int fight = chunk * CHUNK_SIZE; fight < end; fight++) {
+                kernel.fight(GameRandom.mix(combinationSeed + fight), STARTING_HEALTH, loadout.weaponAttackPoints,
+                        loadout.healPoints, monster.getHealth(), monster.getAttackPower(), monster.getDefense());
+                stats.fights++;
+                if (kernel.isWon()) {
+                    stats.wins++;
+                }
+                stats.turns[kernel.getTurns()]++;
+                stats.healthRemaining[kernel.getHealthRemaining()]++;
+            }
+            return stats;
+        }).reduce(Stats::merge).orElseGet(() -> new Stats(maxHealth))).get();
+    }
+
+    // Method to build a loadout for every weapon (and none), each with and without healing items
+    private static List<Loadout> buildLoadouts(GameMap world) {
+        List<Item> weapons = new ArrayList<>();
+        List<Integer> heals = new ArrayList<>();
+        for (Item item : world.getItemCatalog().values()) {
+            if (item.getAttackPoints() > 0) {
+                weapons.add(item);
+            }
+            if (item.getHealPoints() > 0) {
+                heals.add(item.getHealPoints());
+            }
+        }
+        weapons.sort((a, b) -> a.getName().compareTo(b.getName()));
+        int[] healKit = heals.stream().sorted((a, b) -> b - a).mapToInt(Integer::intValue).toArray();
+
+        List<Loadout> loadouts = new ArrayList<>();
+        loadouts.add(new Loadout("Unarmed", 0, new int[0]));
+        loadouts.add(new Loadout("Unarmed + heals", 0, healKit));
+        for (Item weapon : weapons) {
+            loadouts.add(new Loadout(weapon.getName(), weapon.getAttackPoints(), new int[0]));
+            loadouts.add(new Loadout(weapon.getName() + " + heals", weapon.getAttackPoints(), healKit));
+        }
+        return loadouts;
+    }
+
+    private static void report(Monster monster, Loadout loadout, Stats stats) {
+        System.out.printf("%-18s %-28s %6.2f%% %7.2f %5d %5d %8.2f %5d %5d %5d%n", monster.getName(), loadout.name,
+                100.0 * stats.wins / stats.fights, mean(stats.turns, stats.fights),
+                percentile(stats.turns, stats.fights, 0.5), percentile(stats.turns, stats.fights, 0.9),
+                mean(stats.healthRemaining, stats.fights), percentile(stats.healthRemaining, stats.fights, 0.1),
+                percentile(stats.healthRemaining, stats.fights, 0.5),
+                percentile(stats.healthRemaining, stats.fights, 0.9));
+    }
+
+    private static double mean(long[] histogram, long count) {
+        double sum = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            sum += (double) value * histogram[value];
+        }
+        return sum / count;
+    }
+
+    private static int percentile(long[] histogram, long count, double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            seen += histogram[value];
+            if (seen >= rank && histogram[value] > 0) {
+                return value;
+            }
+        }
+        return histogram.length - 1;
+    }
+}
@@ -0,0 +1,12 @@
+/*
+ * The Command interface is a single game command. It receives whatever the player
+ * typed after the command word (trimmed, possibly empty), e.g. "vorpal blade" for
+ * "pickup vorpal blade".
+ * */
+
+package controller;
+
+@FunctionalInterface
+public interface Command {
+    void execute(String argument);
+}
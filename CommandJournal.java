@@ -0,0 +1,335 @@
+/*
+ * The CommandJournal class is a write-ahead journal of every line typed in a game
+ * session, so the session can be rebuilt after a crash. Lines are appended to the
+ * file (a positional FileChannel.write) before the game acts on them; once written
+ * they are in the OS page cache and survive the process dying, and a shared
+ * background thread forces dirty journals to disk every GROUP_COMMIT_MILLIS (group
+ * commit), so a command never waits for the disk. The file is never memory-mapped:
+ * a live mapping cannot be truncated or deleted on Windows.
+ *
+ * Every CHECKPOINT_INTERVAL commands the game hands over a SaveGame snapshot. It is
+ * written (and forced) to a checkpoint file next to the journal, and then the
+ * journal is emptied by starting a new generation: records are tagged with the
+ * generation they were written in, and only records of the current generation
+ * count. The file is truncated back to its header at the same time, so the journal
+ * never holds more than the commands since the last checkpoint.
+ *
+ * Recovery loads the checkpoint (or starts a new game with the journal's seed) and
+ * replays the surviving records; the session's GameRandom state is part of both,
+ * so the replayed game takes exactly the same turns. A clean shutdown deletes both
+ * files.
+ *
+ * The journal file is locked (FileChannel.tryLock) for as long as it is open, so a
+ * second game started in the same folder cannot replay or overwrite the journal of
+ * one that is still running; it gets a LockedException instead. The header is
+ * stamped with the world's fingerprint (GameMap.getFingerprint), and a journal
+ * written for another world is refused rather than replayed against this one.
+ *
+ * Journal layout (big-endian): header [magic, version, seed (long), generation,
+ * reserved, world fingerprint (long)], then records [length, generation, CRC32,
+ * UTF-8 bytes]. A record cut short by a crash fails its length or CRC check and
+ * reads as the end of the journal.
+ * Checkpoint layout: [magic, generation, length, SaveGame bytes].
+ * */
+
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public class CommandJournal implements AutoCloseable {
+    public static final String DEFAULT_FILE_NAME = "session.journal";
+    public static final int MAGIC = 0x414C4A4E; // "ALJN"
+    public static final int CHECKPOINT_MAGIC = 0x414C434B; // "ALCK"
+    public static final int VERSION = 2;
+    public static final int CHECKPOINT_INTERVAL = 1000; // Commands between checkpoints
+    public static final long GROUP_COMMIT_MILLIS = 20;
+    private static final int HEADER_SIZE = 32;
+    private static final int GENERATION_OFFSET = 16;
+    private static final int WORLD_OFFSET = 24;
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    // Journals with appended records that have not been forced to disk yet
+    private static final Set<CommandJournal> OPEN_JOURNALS = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService COMMITTER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        COMMITTER.scheduleWithFixedDelay(() -> {
+            for (CommandJournal journal : OPEN_JOURNALS) {
+                try {
+                    journal.commit();
+                } catch (IOException e) {
+                    // Still dirty, so the next group commit tries again
+                }
+            }
+        }, GROUP_COMMIT_MILLIS, GROUP_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private final Path path;
+    private final Path checkpointPath;
+    private final FileChannel channel;
+    private final FileLock lock; // Held until the journal is closed
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer record = ByteBuffer.allocateDirect(256); // Reused for every record written
+    private long seed;
+    private int generation;
+    private long position; // Where the next record goes
+    private int commandsSinceCheckpoint;
+    private boolean dirty; // Records appended since the last force
+    private List<String> recoveredCommands = Collections.emptyList();
+    private byte[] recoveredCheckpoint;
+
+    // Thrown when another game (in this or another process) has the journal open
+    public static class LockedException extends IOException {
+        public LockedException(Path path) {
+            super(path + " is in use by another game.");
+        }
+    }
+
+    // Constructor that opens a journal for a world, or creates one with the given seed; an
+    // existing journal keeps its own seed and its surviving commands can be recovered.
+    // Throws LockedException if another game has it open, and an IOException if it was
+    // written for a different world (the file is left as it is).
+    public CommandJournal(Path path, long newSeed, long worldFingerprint) throws IOException {
+        this.path = path;
+        this.checkpointPath = path.resolveSibling(path.getFileName() + ".checkpoint");
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.lock = lock(channel, path);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            boolean existing = readFully(header, 0);
+            if (existing && header.getInt(0) == MAGIC && header.getInt(4) == VERSION) {
+                if (header.getLong(WORLD_OFFSET) != worldFingerprint) {
+                    throw new IOException(path + " was written for a different world; start the game with that "
+                            + "world to recover it, or delete the file.");
+                }
+                seed = header.getLong(8);
+                generation = header.getInt(GENERATION_OFFSET);
+                recover();
+            } else {
+                seed = newSeed;
+                generation = 0;
+                header.clear();
+                header.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(generation).putInt(0)
+                        .putLong(worldFingerprint).flip();
+                channel.truncate(0);
+                writeFully(header, 0);
+                position = HEADER_SIZE;
+                Files.deleteIfExists(checkpointPath);
+                channel.force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close(); // Also releases the lock
+            throw e;
+        }
+        OPEN_JOURNALS.add(this);
+    }
+
+    // Takes the journal's lock without waiting, or throws LockedException if it is held
+    private static FileLock lock(FileChannel channel, Path path) throws IOException {
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw new LockedException(path); // Held by another process
+            }
+            return lock;
+        } catch (OverlappingFileLockException e) {
+            throw new LockedException(path); // Held by this process
+        }
+    }
+
+    // Method to check whether this journal holds a session that did not shut down cleanly
+    public boolean hasRecovery() {
+        return recoveredCheckpoint != null || !recoveredCommands.isEmpty();
+    }
+
+    // Method to get the seed the session's GameRandom started from
+    public long getSeed() {
+        return seed;
+    }
+
+    // Method to get the SaveGame bytes of the last checkpoint, or null if there is none
+    public byte[] getRecoveredCheckpoint() {
+        return recoveredCheckpoint;
+    }
+
+    // Method to get the commands typed since the last checkpoint, in order
+    public List<String> getRecoveredCommands() {
+        return Collections.unmodifiableList(recoveredCommands);
+    }
+
+    // Method to append one line of input; it reaches the disk with the next group commit
+    public synchronized void append(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int size = RECORD_HEADER_SIZE + bytes.length;
+        if (size > record.capacity()) {
+            record = ByteBuffer.allocateDirect(Math.max(size, record.capacity() * 2));
+        }
+        crc.reset();
+        crc.update(bytes);
+        record.clear();
+        record.putInt(bytes.length).putInt(generation).putInt((int) crc.getValue()).put(bytes).flip();
+        writeFully(record, position);
+        position += size;
+        commandsSinceCheckpoint++;
+        dirty = true;
+    }
+
+    // Method to check whether enough commands have been journaled to take a checkpoint
+    public boolean isCheckpointDue() {
+        return commandsSinceCheckpoint >= CHECKPOINT_INTERVAL;
+    }
+
+    // Method to store a checkpoint of the session (SaveGame.write) and empty the journal
+    public synchronized void checkpoint(byte[] saveData) throws IOException {
+        int nextGeneration = generation + 1;
+        Path temp = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(12).putInt(CHECKPOINT_MAGIC).putInt(nextGeneration).putInt(saveData.length);
+            header.flip();
+            out.write(new ByteBuffer[] {header, ByteBuffer.wrap(saveData)});
+            out.force(true);
+        }
+        Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // The checkpoint is safe; records of older generations no longer count
+        generation = nextGeneration;
+        channel.truncate(HEADER_SIZE);
+        writeGeneration();
+        channel.force(true);
+        position = HEADER_SIZE;
+        commandsSinceCheckpoint = 0;
+        dirty = false;
+    }
+
+    // Method to force appended records to disk now instead of at the next group commit
+    public synchronized void commit() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    // Method to get the size of the journal file in bytes
+    public long getFileSize() throws IOException {
+        return channel.size();
+    }
+
+    // Method to close the journal; a clean shutdown deletes it and its checkpoint,
+    // otherwise it is kept (and forced) for recovery
+    public void close(boolean clean) throws IOException {
+        OPEN_JOURNALS.remove(this);
+        synchronized (this) {
+            if (!clean) {
+                commit();
+            }
+            channel.close();
+        }
+        if (clean) {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(checkpointPath);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(false);
+    }
+
+    // Reads the checkpoint and the records that come after it
+    private void recover() throws IOException {
+        int checkpointGeneration = -1;
+        if (Files.isRegularFile(checkpointPath)) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(checkpointPath));
+            if (data.remaining() >= 12 && data.getInt() == CHECKPOINT_MAGIC) {
+                checkpointGeneration = data.getInt();
+                int length = data.getInt();
+                if (length == data.remaining()) {
+                    recoveredCheckpoint = new byte[length];
+                    data.get(recoveredCheckpoint);
+                }
+            }
+        }
+        if (recoveredCheckpoint != null && checkpointGeneration > generation) {
+            // Crashed between writing the checkpoint and emptying the journal
+            generation = checkpointGeneration;
+            channel.truncate(HEADER_SIZE);
+            writeGeneration();
+            position = HEADER_SIZE;
+            return;
+        }
+
+        // Only the commands since the last checkpoint are in the file, so it is read whole
+        ByteBuffer records = ByteBuffer.allocate((int) Math.min(channel.size() - HEADER_SIZE, Integer.MAX_VALUE - 8));
+        readFully(records, HEADER_SIZE);
+        records.flip();
+        List<String> commands = new ArrayList<>();
+        int at = 0;
+        while (at + RECORD_HEADER_SIZE <= records.limit()) {
+            int length = records.getInt(at);
+            if (length <= 0 || length > records.limit() - at - RECORD_HEADER_SIZE
+                    || records.getInt(at + 4) != generation) {
+                break;
+            }
+            byte[] bytes = new byte[length];
+            records.get(at + RECORD_HEADER_SIZE, bytes);
+            crc.reset();
+            crc.update(bytes);
+            if ((int) crc.getValue() != records.getInt(at + 8)) {
+                break; // Torn by a crash
+            }
+            commands.add(new String(bytes, StandardCharsets.UTF_8));
+            at += RECORD_HEADER_SIZE + length;
+        }
+        recoveredCommands = commands;
+        position = HEADER_SIZE + at;
+        channel.truncate(position); // Drops a torn record, so new records are never followed by its bytes
+        commandsSinceCheckpoint = commands.size();
+    }
+
+    // Writes the current generation into the header
+    private void writeGeneration() throws IOException {
+        writeFully(ByteBuffer.allocate(4).putInt(0, generation), GENERATION_OFFSET);
+    }
+
+    // Writes all of a buffer at a position in the file
+    private void writeFully(ByteBuffer data, long at) throws IOException {
+        while (data.hasRemaining()) {
+            at += channel.write(data, at);
+        }
+    }
+
+    // Fills a buffer from a position in the file; returns false if the file ends first
+    private boolean readFully(ByteBuffer data, long at) throws IOException {
+        while (data.hasRemaining()) {
+            int read = channel.read(data, at);
+            if (read < 0) {
+                return false;
+            }
+            at += read;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The CommandRegistry class maps command words (and their aliases, such as "n" for
+ * "north") to Commands. Dispatching splits the input once into the command word and
+ * its argument and finds the handler with a single hash lookup, so the cost does not
+ * grow with the number of registered commands. Command words are case-insensitive.
+ * Every dispatch is timed into the GameMetrics histogram of its command word (aliases
+ * count towards their command). Commands that prompt again before finishing, like
+ * "fight", include the time spent waiting for those answers.
+ * */
+
+package controller;
+
+import metrics.GameMetrics;
+import metrics.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class CommandRegistry {
+    // A registered command together with the histogram its dispatches are timed into
+    private static class Entry {
+        private final Command command;
+        private final LatencyHistogram latency;
+
+        Entry(Command command, LatencyHistogram latency) {
+            this.command = command;
+            this.latency = latency;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Command> commands = new HashMap<>(); // Word or alias -> Command, for getCommands
+    private final GameMetrics metrics;
+
+    public CommandRegistry() {
+        this(GameMetrics.getDefault());
+    }
+
+    // Constructor that records dispatches into the given metrics
+    public CommandRegistry(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Method to register a command under its word and any aliases
+    public void register(String word, Command command, String... aliases) {
+        String key = word.toLowerCase(Locale.ROOT);
+        Entry entry = new Entry(command, metrics.commandLatency(key));
+        put(key, entry);
+        for (String alias : aliases) {
+            put(alias.toLowerCase(Locale.ROOT), entry);
+        }
+    }
+
+    // Method to check whether a command word (or alias) is registered
+    public boolean isRegistered(String word) {
+        return entries.containsKey(word.toLowerCase(Locale.ROOT));
+    }
+
+    // Method to get every registered word and alias
+    public Map<String, Command> getCommands() {
+        return Collections.unmodifiableMap(commands);
+    }
+
+    // Method to run the command for a line of input; returns false if the word is unknown
+    public boolean dispatch(String input) {
+        int end = 0;
+        while (end < input.length() && !Character.isWhitespace(input.charAt(end))) {
+            end++;
+        }
+        Entry entry = entries.get(input.substring(0, end).toLowerCase(Locale.ROOT));
+        if (entry == null) {
+            metrics.recordUnknownCommand();
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            entry.command.execute(input.substring(end).trim());
+        } finally {
+            entry.latency.record(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    private void put(String key, Entry entry) {
+        entries.put(key, entry);
+        commands.put(key, entry.command);
+    }
+}
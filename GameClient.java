@@ -0,0 +1,54 @@
+/*
+ * The GameClient class is a small loopback client for GameServer. It copies lines
+ * typed on the console to the server and prints everything the server sends back.
+ *
+ * Usage: java server.GameClient [host] [port]
+ * */
+
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class GameClient {
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+
+        try (Socket socket = new Socket(host, port)) {
+            Thread printer = new Thread(() -> copyToConsole(socket), "alice-client-output");
+            printer.start();
+
+            PrintWriter toServer = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+            String line;
+            while (!socket.isClosed() && (line = console.readLine()) != null) {
+                toServer.println(line);
+            }
+            socket.shutdownOutput();
+            printer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void copyToConsole(Socket socket) {
+        try (InputStream in = socket.getInputStream()) {
+            OutputStream out = System.out;
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Connection closed
+        }
+    }
+}
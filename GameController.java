@@ -1,218 +1,446 @@
 package controller;
 
+import metrics.GameMetrics;
+import model.AutoSaver;
+import model.CombatRules;
+import model.CommandJournal;
+import model.GameRandom;
 import model.Player;
 import model.Item;
 import model.Monster;
 import model.InvalidRoomException;
+import model.Room;
+import model.SaveGame;
 import view.GameView;
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
 public class GameController {
+    public static final String DEFAULT_SAVE_NAME = "savegame";
+    private static final Pattern SAVE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}"); // No paths, just a name
+
     private Player player;
     private GameView view;
+    private boolean running; // Cleared when the player quits or the input ends
+    private CommandRegistry commands; // Commands available while exploring
+    private CommandRegistry combatCommands; // Commands available during a fight
+    private Monster opponent; // Monster being fought, while in combat
+    private Consumer<String> pendingQuestion; // Takes the answer to the question asked this turn, or null
+    private GameRandom random; // Seeded source for every roll in this session
+    private Path saveDirectory; // Where 'save' and 'load' keep their files, or null if saving is off
+    private AutoSaver autoSaver; // Writes periodic autosaves in the background, or null
+    private CommandJournal journal; // Journal of typed commands that checkpoints are taken for, or null
+    private final StringBuilder bannerBuffer = new StringBuilder(256); // Reused for banners that are not kept
 
     public GameController(Player player, GameView view) {
+        this(player, view, new GameRandom());
+    }
+
+    // Constructor with an explicit random source, for reproducible sessions
+    public GameController(Player player, GameView view, GameRandom random) {
         this.player = player;
         this.view = view;
+        this.random = random;
+        player.setOutput(view::displayMessage);
+        view.watchPlayer(player);
+        this.commands = new CommandRegistry();
+        this.combatCommands = new CommandRegistry();
+        registerCommands();
+        registerCombatCommands();
+    }
+
+    // Method to get the exploration commands, so new commands can be added without
+    // changing the game loop
+    public CommandRegistry getCommands() {
+        return commands;
+    }
+
+    // Method to turn on the 'save' and 'load' commands, keeping save files in a folder
+    public void setSaveDirectory(Path saveDirectory) {
+        this.saveDirectory = saveDirectory;
+    }
+
+    // Method to autosave periodically between turns
+    public void setAutoSaver(AutoSaver autoSaver) {
+        this.autoSaver = autoSaver;
+    }
+
+    // Method to take journal checkpoints between turns. The journal itself is filled by the
+    // view's JournalingIO; checkpoints are only taken here, between turns and never halfway
+    // through a line of several commands, so a recovered game always resumes from a plain prompt.
+    public void setJournal(CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    // Method to get the session's random source (its state is part of saves and checkpoints)
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    // Method to get the commands accepted during combat
+    public CommandRegistry getCombatCommands() {
+        return combatCommands;
     }
 
     public void startGame() {
-        while (true) {
-            view.displayMessage("");
-            view.displayMessage("Alice wanders into the " + player.getCurrentRoomName() + "...");
-            view.displayMessage(player.getCurrentRoomDescription());
-            view.displayMessage("");
+        begin();
+        while (running) {
+            String input = view.getUserInput();
 
-            if (player.getCurrentRoom().hasPuzzle() && player.getCurrentRoom().getPuzzleAttempts() < Player.MAX_PUZZLE_ATTEMPTS) {
-                view.displayMessage("There is a puzzle in this room!");
-                view.displayMessage(player.getCurrentRoom().getPuzzle().getDescription());
-            } else if (player.getCurrentRoom().hasPuzzle()) {
-                view.displayMessage("You have reached the maximum number of attempts for this puzzle.");
+            if (input == null) {
+                break; // The console or connection was closed
             }
+            handleInput(input);
+        }
+        view.flushOutput();
+    }
 
-            view.displayMessage("Type 'help' for a list of available commands.");
-            String input = view.getUserInput();
+    // Method to start a game whose input is handed to it with playReadyInput instead of being
+    // read by startGame's loop, e.g. by a server that reads every connection from one thread
+    public void begin() {
+        running = true;
+        describeRoom();
+    }
 
-            if (input.equalsIgnoreCase("exit")) {
-                view.displayMessage("");
-                view.displayMessage("Alice drifts out of Wonderland and returns to the real world...");
-                view.displayMessage("(Exiting Game)");
+    // Method to play every command the view's input already holds, without waiting for more,
+    // and then prompt for the next one; returns false once the game is over
+    public boolean playReadyInput() {
+        while (running && view.hasPendingInput()) {
+            String input = view.getUserInput();
+            if (input == null) {
+                running = false;
                 break;
             }
+            handleInput(input);
+        }
+        if (running) {
+            view.prompt();
+        } else {
+            view.flushOutput();
+        }
+        return running;
+    }
 
-            if (input.equalsIgnoreCase("explore")) {
-                player.explore();
-                continue;
-            }
+    // Method to end a game started with begin once its input has ended
+    public void endInput() {
+        running = false;
+        view.flushOutput();
+    }
 
-            if (input.equalsIgnoreCase("inventory")) {
-                view.displayInventoryPopup(player);
-                continue;
-            }
+    // Method to play one command, or the answer to the question the game is waiting on.
+    // Once the turn is over the room is shown again, unless more input is already waiting,
+    // so a batch of commands ends with a single room description.
+    private void handleInput(String input) {
+        Consumer<String> question = pendingQuestion;
+        pendingQuestion = null;
+        if (question != null) {
+            question.accept(input);
+        } else if (!commands.dispatch(input)) {
+            view.displayMessage("");
+            view.displayMessage("Invalid direction. Please enter North, East, South, West, or exit.");
+        }
+        if (pendingQuestion != null) {
+            return; // The turn goes on until the question is answered
+        }
 
-            if (input.equalsIgnoreCase("help")) {
-                view.displayHelpWindow();
-                continue;
+        if (autoSaver != null) {
+            IOException error = autoSaver.takeError(); // From a write that finished since the last turn
+            if (error != null) {
+                view.displayMessage("Autosave failed: could not write " + autoSaver.getPath() + " ("
+                        + error.getClass().getSimpleName() + ": " + error.getMessage() + ")");
             }
-
-            if (input.startsWith("pickup ")) {
-                String itemName = input.substring(7).trim();
-                player.pickUpItem(itemName);
-                continue;
+            if (autoSaver.isDue()) {
+                autoSaver.submit(SaveGame.write(player, random.getState())); // Written on the autosave thread
             }
+        }
+        if (journal != null && running && !view.hasQueuedCommands() && journal.isCheckpointDue()) {
+            checkpoint();
+        }
+        if (running && !view.hasPendingInput()) {
+            describeRoom();
+        }
+    }
 
-            if (input.startsWith("drop ")) {
-                String itemName = input.substring(5).trim();
-                player.dropItem(itemName);
-                continue;
-            }
+    // Shows the room banner. A room shown again without having changed (its state version
+    // is the one it was last shown at) keeps its banner as a String, so from then on an
+    // unchanged room is shown by appending that String; other banners are rendered into a
+    // reused buffer, so a room that changes on every turn costs no more than before.
+    private void describeRoom() {
+        Room room = player.getCurrentRoom();
+        String banner = room.getRenderedText();
+        if (banner != null) {
+            view.displayText(banner);
+            return;
+        }
 
-            if (input.startsWith("inspect ")) {
-                String itemName = input.substring(8).trim();
-                player.inspectItem(itemName);
-                continue;
-            }
+        bannerBuffer.setLength(0);
+        appendBanner(bannerBuffer, room);
+        if (room.isUnchangedSinceRendered()) {
+            banner = bannerBuffer.toString();
+            room.setRenderedText(banner);
+            view.displayText(banner);
+        } else {
+            room.setRenderedText(null); // Remember the version; keep the text if it is shown again
+            view.displayText(bannerBuffer);
+        }
+    }
 
-            if (input.startsWith("solve ")) {
-                String answer = input.substring(6).trim();
-                player.handlePuzzle(answer);
-                continue;
-            }
+    private static void appendBanner(StringBuilder banner, Room room) {
+        String newLine = System.lineSeparator();
+        banner.append(newLine);
+        banner.append("Alice wanders into the ").append(room.getName()).append("...").append(newLine);
+        banner.append(room.getDescription()).append(newLine);
+        banner.append(newLine);
+
+        if (room.hasPuzzle() && room.getPuzzleAttempts() < Player.MAX_PUZZLE_ATTEMPTS) {
+            banner.append("There is a puzzle in this room!").append(newLine);
+            banner.append(room.getPuzzle().getDescription()).append(newLine);
+        } else if (room.hasPuzzle()) {
+            banner.append("You have reached the maximum number of attempts for this puzzle.").append(newLine);
+        }
 
-            if (input.startsWith("equip ")) {
-                String itemName = input.substring(6).trim();
-                player.equipItem(itemName);
-                continue;
-            }
+        banner.append("Type 'help' for a list of available commands.").append(newLine);
+    }
 
-            if (input.equalsIgnoreCase("unequip")) {
-                player.unequipItem();
-                continue;
-            }
+    // Method to have the next input answer a question instead of being run as a command
+    private void ask(Consumer<String> answer) {
+        pendingQuestion = answer;
+    }
 
-            if (input.equalsIgnoreCase("heal")) {
-                player.heal();
-                continue;
+    private void registerCommands() {
+        commands.register("exit", argument -> {
+            view.displayMessage("");
+            view.displayMessage("Alice drifts out of Wonderland and returns to the real world...");
+            view.displayMessage("(Exiting Game)");
+            running = false;
+        });
+        commands.register("explore", argument -> player.explore());
+        commands.register("inventory", argument -> view.displayInventoryPopup(player));
+        commands.register("help", argument -> view.displayHelpWindow());
+        commands.register("pickup", argument -> player.pickUpItem(argument));
+        commands.register("drop", argument -> player.dropItem(argument));
+        commands.register("inspect", argument -> player.inspectItem(argument));
+        commands.register("solve", argument -> player.handlePuzzle(argument));
+        commands.register("equip", this::equip);
+        commands.register("unequip", argument -> player.unequipItem());
+        commands.register("heal", argument -> player.heal());
+        commands.register("examine", this::examine);
+        commands.register("goto", this::travel);
+        commands.register("save", this::save);
+        commands.register("load", this::load);
+        commands.register("fight", argument -> {
+            Monster monster = player.getCurrentRoom().getMonster();
+            if (monster != null && !monster.isDead()) {
+                fightMonster(monster);
+            } else {
+                view.displayMessage("There is no living monster here to fight.");
             }
+        });
+        commands.register("north", argument -> move("north"), "n");
+        commands.register("east", argument -> move("east"), "e");
+        commands.register("south", argument -> move("south"), "s");
+        commands.register("west", argument -> move("west"), "w");
+    }
 
-            if (input.equalsIgnoreCase("examine monster")) {
-                Monster monster = player.getCurrentRoom().getMonster();
-                if (monster != null && !monster.isDead()) {
-                    view.displayMessage("You examine the monster...");
-                    view.displayMessage(monster.getDescription());
-
-                    int roll = (int) (Math.random() * 100);
-                    int previewDamage = (roll < monster.getThreshold())
-                            ? monster.getAttackDamage() * 2
-                            : monster.getAttackDamage();
-
-                    view.displayMessage("It deals " + previewDamage + " damage!");
-                    view.displayMessage("Do you want to 'attack' or 'ignore'?");
-                    String nextAction = view.getUserInput();
-
-                    if (nextAction.equalsIgnoreCase("attack")) {
-                        fightMonster(monster);
-                    } else if (nextAction.equalsIgnoreCase("ignore")) {
-                        view.displayMessage("You choose to ignore the monster. It vanishes into the shadows.");
-                        player.getCurrentRoom().removeMonster();
-                    } else {
-                        view.displayMessage("Invalid choice. The monster continues to watch you.");
-                    }
-                } else {
-                    view.displayMessage("There is no monster here to examine.");
-                }
-                continue;
-            }
+    private void registerCombatCommands() {
+        combatCommands.register("attack", argument -> {
+            player.attack(opponent);
+            view.displayMessage("You strike the " + opponent.getName() + "!");
+        });
+        combatCommands.register("heal", argument -> player.heal());
+        combatCommands.register("equip", this::equip);
+        combatCommands.register("unequip", argument -> player.unequipItem());
+    }
 
-            if (input.startsWith("fight")) {
-                Monster monster = player.getCurrentRoom().getMonster();
-                if (monster != null && !monster.isDead()) {
-                    fightMonster(monster);
-                } else {
-                    view.displayMessage("There is no living monster here to fight.");
-                }
-                continue;
-            }
+    // "equip best" picks the strongest weapon, unless an item is actually called "best"
+    private void equip(String itemName) {
+        if (itemName.equalsIgnoreCase("best") && player.getInventory().find(itemName) == null) {
+            player.equipBestItem();
+        } else {
+            player.equipItem(itemName);
+        }
+    }
 
-            String nextRoomID = player.getNextRoomID(input);
+    private void move(String direction) {
+        String nextRoomID = player.getNextRoomID(direction);
+        try {
+            player.moveTo(nextRoomID);
+        } catch (InvalidRoomException e) {
+            view.displayMessage(e.getMessage());
+        }
+    }
 
-            if (nextRoomID == null) {
-                view.displayMessage("");
-                view.displayMessage("Invalid direction. Please enter North, East, South, West, or exit.");
-                continue;
-            }
+    private void checkpoint() {
+        try {
+            journal.checkpoint(SaveGame.write(player, random.getState()));
+        } catch (IOException e) {
+            view.displayMessage("Could not checkpoint the journal: " + e.getMessage());
+        }
+    }
 
-            try {
-                player.moveTo(nextRoomID);
-            } catch (InvalidRoomException e) {
-                view.displayMessage(e.getMessage());
-            }
+    private void save(String name) {
+        Path path = saveFile(name);
+        if (path == null) {
+            return;
+        }
+        try {
+            SaveGame.writeFile(path, SaveGame.write(player, random.getState()));
+            view.displayMessage("Game saved to " + path.getFileName() + ".");
+        } catch (IOException e) {
+            view.displayMessage("Could not save the game: " + e.getMessage());
+        }
+    }
+
+    private void load(String name) {
+        Path path = saveFile(name);
+        if (path == null) {
+            return;
+        }
+        try {
+            SaveGame saved = SaveGame.readFile(path, player.getMap().getWorld());
+            player = saved.getPlayer();
+            player.setOutput(view::displayMessage);
+            view.watchPlayer(player);
+            random.setState(saved.getRandomState());
+            view.displayMessage("Game loaded from " + path.getFileName() + ".");
+        } catch (NoSuchFileException e) {
+            view.displayMessage("There is no saved game called " + path.getFileName() + ".");
+        } catch (IOException | InvalidRoomException e) {
+            view.displayMessage("Could not load the game: " + e.getMessage());
+        }
+    }
+
+    // Finds the file for a save name, or reports why it cannot be used and returns null
+    private Path saveFile(String name) {
+        if (saveDirectory == null) {
+            view.displayMessage("Saving is not available in this game.");
+            return null;
+        }
+        String saveName = name.isEmpty() ? DEFAULT_SAVE_NAME : name;
+        if (!SAVE_NAME.matcher(saveName).matches()) {
+            view.displayMessage("Save names may only use letters, digits, '-' and '_'.");
+            return null;
+        }
+        return saveDirectory.resolve(saveName + ".sav");
+    }
+
+    private void travel(String roomName) {
+        try {
+            player.travelTo(roomName);
+        } catch (InvalidRoomException e) {
+            view.displayMessage(e.getMessage());
+        }
+    }
+
+    private void examine(String target) {
+        if (!target.equalsIgnoreCase("monster")) {
+            view.displayMessage("");
+            view.displayMessage("Invalid direction. Please enter North, East, South, West, or exit.");
+            return;
+        }
+
+        Monster monster = player.getCurrentRoom().getMonster();
+        if (monster != null && !monster.isDead()) {
+            view.displayMessage("You examine the monster...");
+            view.displayMessage(monster.getDescription());
+
+            int roll = random.nextInt(CombatRules.ROLL_RANGE);
+            int previewDamage = CombatRules.monsterDamage(monster.getAttackDamage(), monster.getThreshold(), roll);
+
+            view.displayMessage("It deals " + previewDamage + " damage!");
+            view.displayMessage("Do you want to 'attack' or 'ignore'?");
+            ask(nextAction -> {
+                if (nextAction.equalsIgnoreCase("attack")) {
+                    fightMonster(monster);
+                } else if (nextAction.equalsIgnoreCase("ignore")) {
+                    view.displayMessage("You choose to ignore the monster. It vanishes into the shadows.");
+                    player.getCurrentRoom().removeMonster();
+                } else {
+                    view.displayMessage("Invalid choice. The monster continues to watch you.");
+                }
+            });
+        } else {
+            view.displayMessage("There is no monster here to examine.");
         }
     }
 
     private void fightMonster(Monster monster) {
         view.displayMessage("You encountered a " + monster.getName() + "!");
+        opponent = monster;
+        nextCombatRound();
+    }
 
-        while (!monster.isDead() && player.isAlive()) {
-            view.displayMessage("Your HP: " + player.getHealth() + " | Monster HP: " + monster.getHealth());
-            view.displayMessage("Choose: attack | heal | equip [item] | unequip");
-            String command = view.getUserInput();
-
-            if (command.equalsIgnoreCase("attack")) {
-                player.attack(monster);
-                view.displayMessage("You strike the " + monster.getName() + "!");
-            } else if (command.equalsIgnoreCase("heal")) {
-                player.heal();
-            } else if (command.startsWith("equip ")) {
-                String itemName = command.substring(6).trim();
-                player.equipItem(itemName);
-            } else if (command.equalsIgnoreCase("unequip")) {
-                player.unequipItem();
-            } else {
-                view.displayMessage("Invalid combat command.");
-                continue;
-            }
+    // Asks for the next combat command while both sides are standing, or ends the fight
+    private void nextCombatRound() {
+        if (!opponent.isDead() && player.isAlive()) {
+            view.displayMessage("Your HP: " + player.getHealth() + " | Monster HP: " + opponent.getHealth());
+            view.displayMessage("Choose: attack | heal | equip [item] | equip best | unequip");
+            ask(this::playCombatRound);
+        } else {
+            endFight();
+        }
+    }
 
-            if (monster.isDead()) {
-                view.displayMessage("The " + monster.getName() + " is dead!");
-                if (monster.getItemDrop() != null) {
-                    String itemName = monster.getItemDrop();
-                    view.displayMessage("You found a " + itemName + "!");
-                    Item item = new Item(itemName, "Dropped by a monster", 0, 0);
-                    player.getCurrentRoom().addItem(item);
-                }
-                player.getCurrentRoom().removeMonster();
-                break;
+    private void playCombatRound(String command) {
+        Monster monster = opponent;
+        if (!combatCommands.dispatch(command)) {
+            view.displayMessage("Invalid combat command.");
+            nextCombatRound();
+            return;
+        }
+        GameMetrics.getDefault().recordCombatRound();
+
+        if (monster.isDead()) {
+            view.displayMessage("The " + monster.getName() + " is dead!");
+            if (monster.getItemDrop() != null) {
+                String itemName = monster.getItemDrop();
+                view.displayMessage("You found a " + itemName + "!");
+                Item item = new Item(itemName, "Dropped by a monster", 0, 0);
+                player.getCurrentRoom().addItem(item);
             }
-
-            int monsterDamage = monster.attack();
-            player.takeDamage(monsterDamage);
-            view.displayMessage("The " + monster.getName() + " hits you for " + monsterDamage + " damage!");
+            player.getCurrentRoom().removeMonster();
+            endFight();
+            return;
         }
 
+        int monsterDamage = monster.attack();
+        player.takeDamage(monsterDamage);
+        view.displayMessage("The " + monster.getName() + " hits you for " + monsterDamage + " damage!");
+        nextCombatRound();
+    }
+
+    private void endFight() {
+        opponent = null;
+
         if (!player.isAlive()) {
             view.displayMessage("You have been defeated!");
             view.displayMessage("Type 'restart' to start over, or 'exit' to quit the game.");
+            ask(this::afterDefeat);
+        }
+    }
 
-            while (true) {
-                String choice = view.getUserInput();
-
-                if (choice.equalsIgnoreCase("exit")) {
-                    view.displayMessage("Goodbye, Alice...");
-                    System.exit(0);
-                } else if (choice.equalsIgnoreCase("restart")) {
-                    try {
-                        this.player = new Player("map.txt", "item.txt", "puzzle.txt", "monsters.txt");
-                        view.displayMessage("Game restarted. Welcome back to Wonderland.");
-                    } catch (Exception e) {
-                        view.displayMessage("Failed to restart the game.");
-                        e.printStackTrace();
-                        System.exit(1);
-                    }
-                    break;
-                } else {
-                    view.displayMessage("Invalid input. Type 'restart' or 'exit'.");
-                }
+    private void afterDefeat(String choice) {
+        if (choice.equalsIgnoreCase("exit")) {
+            view.displayMessage("Goodbye, Alice...");
+            running = false;
+        } else if (choice.equalsIgnoreCase("restart")) {
+            try {
+                this.player = new Player(player.getMap().getWorld().newSession());
+                player.setOutput(view::displayMessage);
+                view.watchPlayer(player);
+                view.displayMessage("Game restarted. Welcome back to Wonderland.");
+            } catch (Exception e) {
+                view.displayMessage("Failed to restart the game.");
+                e.printStackTrace();
+                running = false;
             }
+        } else {
+            view.displayMessage("Invalid input. Type 'restart' or 'exit'.");
+            ask(this::afterDefeat);
         }
     }
 }
@@ -0,0 +1,25 @@
+/*
+ * The GameIO interface is the line-based input/output channel behind GameView.
+ * The console, a network session or a test script can all stand behind it, so the
+ * view and controller never talk to System.in or System.out directly.
+ * isInputReady lets the view notice type-ahead and hold back its prompt and output
+ * until the queued commands have run.
+ * */
+
+package view;
+
+public interface GameIO {
+    // Method to read the next line of input, or null once the input has ended
+    String readLine();
+
+    // Method to tell whether a line has already been typed ahead, so readLine will not wait for it
+    default boolean isInputReady() {
+        return false;
+    }
+
+    // Method to write text (without adding a line break)
+    void write(String text);
+
+    // Method to push any buffered output to its destination
+    void flush();
+}
@@ -1,26 +1,56 @@
 /*
  * The GameMap class is responsible for loading the game map, items, 
  * puzzles, and monsters from files and providing access to the rooms. 
- * It uses an ArrayList for storing rooms and HashMap for storing items, puzzles, 
- * and monsters, allowing for efficient lookups and management of game elements. 
+ * It stores the rooms in a compact WorldGraph (rooms as int indexes, exits in an int 
+ * array) and uses HashMaps for storing items, puzzles, and monsters, allowing for 
+ * efficient lookups and management of game elements. 
+ * All four files are parsed with the shared TildeReader tokenizer.
+ * The graph indexes rooms by ID as they are read, so getRoom is a constant-time 
+ * lookup no matter how large the map is. 
+ * The RoutingTable used by 'goto' is built once per world, the first time any session
+ * asks for it, and shared by all of its sessions; worlds that never route never pay for it.
+ * GameMap.load prefers a precompiled WorldSnapshot and only parses the text files 
+ * when the snapshot is missing or older than them. 
+ * Items, puzzles and monsters are loaded in parallel while Map.txt is tokenized, and 
+ * the rooms are only linked to their items, puzzles and monsters once all four are done. 
+ * A loaded GameMap is a shared world template: each game calls newSession() to get a 
+ * GameMap of its own that creates a Room (with its own state) the first time a room is 
+ * visited and leaves the template untouched, so sessions only use memory for the rooms 
+ * they actually touch. Rooms returned by the template itself are fresh read-only views 
+ * of the world's starting state. 
  * The class includes methods for loading data from files, retrieving rooms by ID, 
  * and associating items, puzzles, and monsters with rooms.
  */
 
 package model;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import metrics.GameMetrics;
+
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class GameMap {
-    private ArrayList<Room> rooms;
+    private static final long FINGERPRINT_SEED = 0x414C4D50; // "ALMP"
+    private WorldGraph graph; // Every room of the world, by index
     private Map<String, Item> items;
     private Map<String, Puzzle> puzzles;
     private Map<String, Monster> monsters;
+    private Map<String, Long> loadTimes; // File (or step) -> load time in nanoseconds, in load order
+    private List<WorldValidator.Finding> missingReferences; // Catalog entries named in Map.txt but not found
+    private GameMap world; // The shared template this session copies from, or null for a template
+    private Map<String, Room> sessionRooms; // Rooms this session has touched (copy-on-write)
+    private volatile RoutingTable routingTable; // Built once per world, on the first getRoutingTable
+    private volatile long fingerprint; // Worked out once per world, on first need (0 until then)
 
     // Default constructor
     public GameMap() throws IOException, InvalidRoomException {
@@ -29,74 +59,296 @@ public class GameMap {
 
     // Constructor that accepts all file paths
     public GameMap(String roomFilePath, String itemFilePath, String puzzleFilePath, String monsterFilePath) throws IOException, InvalidRoomException {
-        rooms = new ArrayList<>();
+        graph = new WorldGraph(1024);
         items = new HashMap<>();
         puzzles = new HashMap<>();
         monsters = new HashMap<>();
+        loadTimes = new LinkedHashMap<>();
+        missingReferences = new ArrayList<>();
+        long start = System.nanoTime();
+
+        // The catalogs do not depend on each other, and Map.txt can be tokenized before they exist
+        CompletableFuture<Long> itemsLoaded = loadAsync(() -> loadItems(itemFilePath));
+        CompletableFuture<Long> puzzlesLoaded = loadAsync(() -> loadPuzzles(puzzleFilePath));
+        CompletableFuture<Long> monstersLoaded = loadAsync(() -> loadMonsters(monsterFilePath));
+        List<PendingRoom> pendingRooms = new ArrayList<>();
+        CompletableFuture<Long> roomsRead = loadAsync(() -> readRooms(roomFilePath, pendingRooms));
 
-        loadItems(itemFilePath);
-        loadPuzzles(puzzleFilePath);
-        loadMonsters(monsterFilePath);
-        readRooms(roomFilePath);
+        // Every file is awaited (in a fixed order) before any error is rethrown
+        Throwable failure = null;
+        String[] fileNames = {itemFilePath, puzzleFilePath, monsterFilePath, roomFilePath};
+        CompletableFuture<?>[] loads = {itemsLoaded, puzzlesLoaded, monstersLoaded, roomsRead};
+        for (int i = 0; i < loads.length; i++) {
+            try {
+                loadTimes.put(fileNames[i], (Long) loads[i].join());
+            } catch (CompletionException e) {
+                failure = failure != null ? failure : e.getCause();
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof InvalidRoomException) {
+            throw (InvalidRoomException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+
+        long linkStart = System.nanoTime();
+        linkRooms(pendingRooms);
+        loadTimes.put("(link rooms)", System.nanoTime() - linkStart);
+        loadTimes.put("(total)", System.nanoTime() - start);
+        recordLoadTimes();
+    }
+
+    // Constructor used by WorldSnapshot for maps that were already parsed
+    GameMap(WorldGraph graph, Map<String, Item> items, Map<String, Puzzle> puzzles, Map<String, Monster> monsters,
+            List<WorldValidator.Finding> missingReferences) {
+        this.graph = graph;
+        this.items = items;
+        this.puzzles = puzzles;
+        this.monsters = monsters;
+        this.loadTimes = new LinkedHashMap<>();
+        this.missingReferences = missingReferences;
+    }
+
+    // Constructor for a session over a shared world template
+    private GameMap(GameMap world) {
+        this.world = world;
+        this.graph = world.graph;
+        this.items = world.items;
+        this.puzzles = world.puzzles;
+        this.monsters = world.monsters;
+        this.loadTimes = world.loadTimes;
+        this.missingReferences = world.missingReferences;
+        this.sessionRooms = new HashMap<>();
+    }
+
+    // Method to start a new game over this world; the world itself is never modified by it
+    public GameMap newSession() {
+        return new GameMap(getWorld());
+    }
+
+    // Method to get the shared world template (this map itself when it is not a session)
+    public GameMap getWorld() {
+        return world != null ? world : this;
+    }
+
+    // Method to get the rooms this session has changed or visited, keyed by room ID
+    public Map<String, Room> getSessionRooms() {
+        return sessionRooms != null ? Collections.unmodifiableMap(sessionRooms) : Collections.emptyMap();
+    }
+
+    // Method to load the world from its snapshot, falling back to the text files when the
+    // snapshot is missing or stale
+    public static GameMap load(String roomFilePath, String itemFilePath, String puzzleFilePath, String monsterFilePath)
+            throws IOException, InvalidRoomException {
+        Path snapshotPath = WorldSnapshot.snapshotPathFor(roomFilePath);
+        long start = System.nanoTime();
+        GameMap map = WorldSnapshot.read(snapshotPath, roomFilePath, itemFilePath, puzzleFilePath, monsterFilePath);
+        if (map != null) {
+            map.loadTimes.put(snapshotPath.toString(), System.nanoTime() - start);
+            map.recordLoadTimes();
+        } else {
+            map = new GameMap(roomFilePath, itemFilePath, puzzleFilePath, monsterFilePath);
+        }
+        return map;
+    }
+
+    // Method to get the world's routing table; the first call (usually the first 'goto' of any
+    // session) builds it, and every later call and session shares it
+    public RoutingTable getRoutingTable() {
+        GameMap world = getWorld();
+        RoutingTable table = world.routingTable;
+        if (table == null) {
+            synchronized (world) {
+                table = world.routingTable;
+                if (table == null) {
+                    long start = System.nanoTime();
+                    table = new RoutingTable(world.graph);
+                    GameMetrics.getDefault().recordLoadTime("(routing table)", System.nanoTime() - start);
+                    world.routingTable = table;
+                }
+            }
+        }
+        return table;
     }
 
     public Room getRoom(String roomID) throws InvalidRoomException {
-        for (Room room : rooms) {
-            if (roomID.equals(room.getRoomID())) {
-                return room;
+        if (sessionRooms != null) {
+            Room room = sessionRooms.get(roomID);
+            if (room == null) {
+                room = new Room(graph, indexOf(roomID)); // First touch: the room's starting state
+                sessionRooms.put(roomID, room);
             }
+            return room;
         }
-        throw new InvalidRoomException("Room not found: " + roomID);
+        return new Room(graph, indexOf(roomID));
+    }
+
+    // Method to get the number of rooms loaded from the map file
+    public int getRoomCount() {
+        return graph.getRoomCount();
+    }
+
+    // Method to get a 64-bit fingerprint of the world: its room IDs and exits, what each room
+    // starts with, and the item, puzzle and monster catalogs. Saves and journals are stamped
+    // with it so they are never restored into a different world. Room names and descriptions
+    // are left out; they are only shown, never saved.
+    public long getFingerprint() {
+        GameMap template = getWorld();
+        long hash = template.fingerprint;
+        if (hash == 0) {
+            hash = template.computeFingerprint();
+            template.fingerprint = hash;
+        }
+        return hash;
+    }
+
+    private long computeFingerprint() {
+        long hash = mix(FINGERPRINT_SEED, graph.getRoomCount());
+        for (int room = 0; room < graph.getRoomCount(); room++) {
+            hash = mix(hash, graph.getRoomID(room).hashCode());
+            for (int direction = WorldGraph.NORTH; direction <= WorldGraph.WEST; direction++) {
+                hash = mix(hash, graph.getExitID(room, direction).hashCode());
+            }
+            for (Item item : graph.getItems(room)) {
+                hash = mix(hash, item.getName().hashCode());
+            }
+            hash = mix(hash, graph.hasPuzzle(room) ? graph.getPuzzle(room).getPuzzleID().hashCode() : 0);
+            hash = mix(hash, graph.hasMonster(room) ? graph.getMonster(room).getName().hashCode() : 0);
+        }
+        // The catalogs are hash maps, so their entries are combined in an order-independent way
+        long catalogs = 0;
+        for (Item item : items.values()) {
+            catalogs += mix(mix(mix(1, item.getName().hashCode()), item.getAttackPoints()), item.getHealPoints());
+        }
+        for (Puzzle puzzle : puzzles.values()) {
+            catalogs += mix(mix(2, puzzle.getPuzzleID().hashCode()), puzzle.getSolution().hashCode());
+        }
+        for (Monster monster : monsters.values()) {
+            catalogs += mix(mix(mix(mix(3, monster.getName().hashCode()), monster.getHealth()),
+                    monster.getAttackPower()), monster.getDefense());
+        }
+        hash = mix(hash, catalogs);
+        return hash != 0 ? hash : 1; // 0 means "not worked out yet"
+    }
+
+    // Folds a value into a running hash (the splitmix64 finalizer)
+    private static long mix(long hash, long value) {
+        long z = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Method to get the world's rooms in their compact form, for traversals over the whole map
+    public WorldGraph getGraph() {
+        return graph;
+    }
+
+    private int indexOf(String roomID) throws InvalidRoomException {
+        int index = graph.indexOf(roomID);
+        if (index == WorldGraph.NO_ROOM) {
+            throw new InvalidRoomException("Room not found: " + roomID);
+        }
+        return index;
+    }
+
+    // Method to get how long each file took to load, in nanoseconds and in load order.
+    // Text loads also report the room linking step and the total wall-clock time.
+    public Map<String, Long> getLoadTimes() {
+        return Collections.unmodifiableMap(loadTimes);
+    }
+
+    // Method to get the rooms' references to items, puzzles and monsters that are not in the
+    // catalogs (found while linking the text files; a snapshot has none left)
+    public List<WorldValidator.Finding> getMissingReferences() {
+        return Collections.unmodifiableList(missingReferences);
+    }
+
+    // Reports the load times of a freshly loaded world to GameMetrics
+    private void recordLoadTimes() {
+        for (Map.Entry<String, Long> entry : loadTimes.entrySet()) {
+            GameMetrics.getDefault().recordLoadTime(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Methods to get the loaded rooms and catalogs (read-only; the rooms are views of the
+    // world's starting state, even for a session; use getRoom for the session's own room)
+    public List<Room> getRooms() {
+        return new AbstractList<Room>() {
+            @Override
+            public Room get(int index) {
+                Objects.checkIndex(index, graph.getRoomCount());
+                return new Room(graph, index);
+            }
+
+            @Override
+            public int size() {
+                return graph.getRoomCount();
+            }
+        };
+    }
+
+    public Map<String, Item> getItemCatalog() {
+        return Collections.unmodifiableMap(items);
+    }
+
+    public Map<String, Puzzle> getPuzzleCatalog() {
+        return Collections.unmodifiableMap(puzzles);
+    }
+
+    public Map<String, Monster> getMonsterCatalog() {
+        return Collections.unmodifiableMap(monsters);
     }
 
     private void loadItems(String fileName) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("~");
-                if (parts.length >= 2) {
-                    String itemName = parts[0];
-                    String itemDescription = parts[1];
-
-                    int attackPoints = 0;
-                    int healPoints = 0;
-
-                    if (parts.length >= 4) {
-                        try {
-                            attackPoints = Integer.parseInt(parts[2]);
-                        } catch (NumberFormatException e) {
-                            System.err.println("Invalid attack points for item: " + itemName);
-                        }
-
-                        try {
-                            healPoints = Integer.parseInt(parts[3]);
-                        } catch (NumberFormatException e) {
-                            System.err.println("Invalid heal points for item: " + itemName);
-                        }
+        TildeReader reader = new TildeReader(fileName);
+        while (reader.nextLine()) {
+            int fieldCount = reader.fieldCount();
+            if (fieldCount >= 2) {
+                String itemName = reader.nextString();
+                String itemDescription = reader.nextString();
+
+                int attackPoints = 0;
+                int healPoints = 0;
+
+                if (fieldCount >= 4) {
+                    try {
+                        attackPoints = reader.nextInt();
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid attack points for item: " + itemName);
                     }
 
-                    Item item = new Item(itemName, itemDescription, attackPoints, healPoints);
-                    items.put(itemName, item);
-                } else {
-                    System.err.println("Invalid item data: " + line);
+                    try {
+                        healPoints = reader.nextInt();
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid heal points for item: " + itemName);
+                    }
                 }
+
+                Item item = new Item(itemName, itemDescription, attackPoints, healPoints);
+                items.put(itemName, item);
+            } else {
+                System.err.println("Invalid item data: " + reader.currentLine());
             }
         }
     }
 
     private void loadPuzzles(String fileName) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("~");
-                if (parts.length >= 3) {
-                    String puzzleID = parts[0];
-                    String description = parts[1];
-                    String solution = parts[2];
+        try {
+            TildeReader reader = new TildeReader(fileName);
+            while (reader.nextLine()) {
+                if (reader.fieldCount() >= 3) {
+                    String puzzleID = reader.nextString();
+                    String description = reader.nextString();
+                    String solution = reader.nextString();
                     Puzzle puzzle = new Puzzle(puzzleID, description, solution);
                     puzzles.put(puzzleID, puzzle);
                 } else {
-                    System.err.println("Invalid puzzle data: " + line);
+                    System.err.println("Invalid puzzle data: " + reader.currentLine());
                 }
             }
         } catch (IOException e) {
@@ -105,84 +357,132 @@ public class GameMap {
     }
 
     private void loadMonsters(String fileName) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("~");
-                if (parts.length >= 6) {
-                    String name = parts[0];
-                    String description = parts[1];
-                    int health = Integer.parseInt(parts[2]);
-                    int attackPower = Integer.parseInt(parts[3]);
-                    int defense = Integer.parseInt(parts[4]);
-                    String itemDrop = parts[5];
-                    Monster monster = new Monster(name, description, health, attackPower, defense, itemDrop);
-                    monsters.put(name, monster);
-                } else {
-                    System.err.println("Invalid monster data: " + line);
-                }
+        TildeReader reader = new TildeReader(fileName);
+        while (reader.nextLine()) {
+            if (reader.fieldCount() >= 6) {
+                String name = reader.nextString();
+                String description = reader.nextString();
+                int health = reader.nextInt();
+                int attackPower = reader.nextInt();
+                int defense = reader.nextInt();
+                String itemDrop = reader.nextString();
+                Monster monster = new Monster(name, description, health, attackPower, defense, itemDrop);
+                monsters.put(name, monster);
+            } else {
+                System.err.println("Invalid monster data: " + reader.currentLine());
             }
         }
     }
 
-    private void readRooms(String fileName) throws IOException, InvalidRoomException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("~");
-                if (parts.length < 8) {
-                    throw new InvalidRoomException("Invalid room data: " + line);
-                }
+    // Method to tokenize Map.txt into the graph; rooms with an item, puzzle or monster are
+    // remembered so they can be linked to them once the catalogs are loaded
+    private void readRooms(String fileName, List<PendingRoom> pendingRooms) throws IOException, InvalidRoomException {
+        TildeReader reader = new TildeReader(fileName);
+        String[] connections = new String[4]; // Reused for every room's n,e,s,w exits
+        while (reader.nextLine()) {
+            if (reader.fieldCount() < 8) {
+                throw new InvalidRoomException("Invalid room data: " + reader.currentLine());
+            }
 
-                String roomID = parts[0];
-                boolean isVisited = Boolean.parseBoolean(parts[1]);
-                String roomName = parts[2];
-                String description = parts[3];
-                String itemID = parts[4];
-                String puzzleID = parts[5];
-                String[] connections = parts[6].split(",");
-                String monsterID = parts[7];
-
-                if (connections.length < 4) {
-                    throw new InvalidRoomException("Invalid connections data: " + parts[6]);
-                }
+            String roomID = reader.nextString();
+            boolean isVisited = reader.nextBoolean();
+            String roomName = reader.nextString();
+            String description = reader.nextString();
+            String itemID = reader.nextString();
+            String puzzleID = reader.nextString();
+
+            if (reader.listLength() < 4) {
+                throw new InvalidRoomException("Invalid connections data: " + reader.peekField());
+            }
 
-                String north = connections[0];
-                String east = connections[1];
-                String south = connections[2];
-                String west = connections[3];
+            reader.nextList(connections);
+            String monsterID = reader.nextString();
 
-                Room room = new Room(roomID, roomName, isVisited, description, north, east, south, west);
+            String north = connections[0];
+            String east = connections[1];
+            String south = connections[2];
+            String west = connections[3];
 
-                if (!itemID.equals("0")) {
-                    Item item = items.get(itemID);
-                    if (item != null) {
-                        room.addItem(item);
-                    } else {
-                        System.err.println("Item ID not found: " + itemID);
-                    }
+            int index = graph.addRoom(roomID, roomName, isVisited, description, north, east, south, west);
+            if (!itemID.equals("0") || !puzzleID.equals("0") || !monsterID.equals("0")) {
+                pendingRooms.add(new PendingRoom(index, itemID, puzzleID, monsterID));
+            }
+        }
+        graph.linkExits();
+    }
+
+    // Method to attach items, puzzles and monsters to the rooms once every catalog is loaded
+    private void linkRooms(List<PendingRoom> pendingRooms) {
+        for (PendingRoom pending : pendingRooms) {
+            int room = pending.room;
+
+            if (!pending.itemID.equals("0")) {
+                Item item = items.get(pending.itemID);
+                if (item != null) {
+                    graph.addItem(room, item);
+                } else {
+                    System.err.println("Item ID not found: " + pending.itemID);
+                    missingReferences.add(missing(WorldValidator.Kind.MISSING_ITEM, room, "item", pending.itemID));
                 }
+            }
 
-                if (!puzzleID.equals("0")) {
-                    Puzzle puzzle = puzzles.get(puzzleID);
-                    if (puzzle != null) {
-                        room.addPuzzle(puzzle);
-                    } else {
-                        System.err.println("Puzzle ID not found: " + puzzleID);
-                    }
+            if (!pending.puzzleID.equals("0")) {
+                Puzzle puzzle = puzzles.get(pending.puzzleID);
+                if (puzzle != null) {
+                    graph.setPuzzle(room, puzzle);
+                } else {
+                    System.err.println("Puzzle ID not found: " + pending.puzzleID);
+                    missingReferences.add(missing(WorldValidator.Kind.MISSING_PUZZLE, room, "puzzle", pending.puzzleID));
                 }
+            }
 
-                if (!monsterID.equals("0")) {
-                    Monster monster = monsters.get(monsterID);
-                    if (monster != null) {
-                        room.addMonster(monster);
-                    } else {
-                        System.err.println("Monster ID not found: " + monsterID);
-                    }
+            if (!pending.monsterID.equals("0")) {
+                Monster monster = monsters.get(pending.monsterID);
+                if (monster != null) {
+                    graph.setMonster(room, monster);
+                } else {
+                    System.err.println("Monster ID not found: " + pending.monsterID);
+                    missingReferences.add(missing(WorldValidator.Kind.MISSING_MONSTER, room, "monster", pending.monsterID));
                 }
+            }
+        }
+    }
+
+    private WorldValidator.Finding missing(WorldValidator.Kind kind, int room, String label, String id) {
+        String roomID = graph.getRoomID(room);
+        return new WorldValidator.Finding(kind, roomID, "Room " + roomID + " holds " + label + " '" + id
+                + "', which is not in the catalog.");
+    }
 
-                rooms.add(room);
+    // Runs one file load on the common pool and completes with its elapsed time
+    private static CompletableFuture<Long> loadAsync(LoadTask task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                task.load();
+            } catch (IOException | InvalidRoomException e) {
+                throw new CompletionException(e);
             }
+            return System.nanoTime() - start;
+        });
+    }
+
+    private interface LoadTask {
+        void load() throws IOException, InvalidRoomException;
+    }
+
+    // A room read from Map.txt together with the IDs it still has to be linked to
+    private static class PendingRoom {
+        private final int room; // Index in the graph
+        private final String itemID;
+        private final String puzzleID;
+        private final String monsterID;
+
+        PendingRoom(int room, String itemID, String puzzleID, String monsterID) {
+            this.room = room;
+            this.itemID = itemID;
+            this.puzzleID = puzzleID;
+            this.monsterID = monsterID;
         }
     }
 }
@@ -0,0 +1,178 @@
+/*
+ * The GameMetrics class collects runtime statistics for every session in the JVM:
+ * how often each command runs and how long it takes (a LatencyHistogram per command
+ * word), unknown commands, room transitions, combat rounds and world load times.
+ * Recording only bumps striped counters (LongAdder), so it costs a few nanoseconds
+ * and nothing is added up until somebody reads the numbers.
+ *
+ * publish() registers the metrics as JMX MBeans (under "alice:type=Game" and
+ * "alice:type=Command,name=<word>") so they can be watched with jconsole or any JMX
+ * client; report() and dumpToFile() write everything out as plain text.
+ * */
+
+package metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class GameMetrics implements GameMetricsMBean {
+    public static final String JMX_DOMAIN = "alice";
+
+    private static final GameMetrics DEFAULT = new GameMetrics();
+
+    private final Map<String, LatencyHistogram> commandLatencies = new ConcurrentHashMap<>();
+    private final Map<String, Long> loadTimes = new ConcurrentSkipListMap<>(); // File (or step) -> nanoseconds
+    private final LongAdder unknownCommands = new LongAdder();
+    private final LongAdder roomTransitions = new LongAdder();
+    private final LongAdder combatRounds = new LongAdder();
+    private volatile MBeanServer server; // Set once published
+
+    // Method to get the metrics shared by the whole game
+    public static GameMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    // Method to get (or create) the latency histogram for a command word.
+    // Callers keep the histogram, so recording a command never needs a map lookup.
+    public LatencyHistogram commandLatency(String word) {
+        return commandLatencies.computeIfAbsent(word, key -> {
+            LatencyHistogram histogram = new LatencyHistogram();
+            register(histogram, commandName(key));
+            return histogram;
+        });
+    }
+
+    public void recordUnknownCommand() {
+        unknownCommands.increment();
+    }
+
+    public void recordRoomTransition() {
+        roomTransitions.increment();
+    }
+
+    public void recordCombatRound() {
+        combatRounds.increment();
+    }
+
+    // Method to record how long a world file (or load step) took, replacing any earlier time
+    public void recordLoadTime(String name, long nanos) {
+        loadTimes.put(name, nanos);
+    }
+
+    // Method to register this object and every command histogram with the platform MBean server
+    public synchronized void publish() {
+        if (server != null) {
+            return;
+        }
+        server = ManagementFactory.getPlatformMBeanServer();
+        register(this, JMX_DOMAIN + ":type=Game");
+        for (Map.Entry<String, LatencyHistogram> entry : commandLatencies.entrySet()) {
+            register(entry.getValue(), commandName(entry.getKey()));
+        }
+    }
+
+    @Override
+    public long getCommandCount() {
+        long total = 0;
+        for (LatencyHistogram histogram : commandLatencies.values()) {
+            total += histogram.getCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getUnknownCommandCount() {
+        return unknownCommands.sum();
+    }
+
+    @Override
+    public long getRoomTransitions() {
+        return roomTransitions.sum();
+    }
+
+    @Override
+    public long getCombatRounds() {
+        return combatRounds.sum();
+    }
+
+    @Override
+    public String[] getLoadTimes() {
+        return loadTimes.entrySet().stream()
+                .map(entry -> String.format("%s: %.2f ms", entry.getKey(), entry.getValue() / 1e6))
+                .toArray(String[]::new);
+    }
+
+    // Method to build a plain-text report of every metric
+    @Override
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-12s %10s %10s %10s %10s %10s %10s%n",
+                "command", "count", "mean us", "p50 us", "p90 us", "p99 us", "max us"));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(commandLatencies).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            report.append(String.format("%-12s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(),
+                    histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+                    histogram.getP90Micros(), histogram.getP99Micros(), histogram.getMaxMicros()));
+        }
+        report.append(String.format("%nUnknown commands: %d%n", getUnknownCommandCount()));
+        report.append(String.format("Room transitions: %d%n", getRoomTransitions()));
+        report.append(String.format("Combat rounds:    %d%n", getCombatRounds()));
+        if (!loadTimes.isEmpty()) {
+            report.append(String.format("%nLoad times:%n"));
+            for (String loadTime : getLoadTimes()) {
+                report.append("  ").append(loadTime).append(System.lineSeparator());
+            }
+        }
+        return report.toString();
+    }
+
+    // Method to write the report to a text file
+    @Override
+    public void dumpToFile(String path) throws IOException {
+        Files.writeString(Path.of(path), report(), StandardCharsets.UTF_8);
+    }
+
+    // Method to clear the counters and histograms (load times are kept)
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : commandLatencies.values()) {
+            histogram.reset();
+        }
+        unknownCommands.reset();
+        roomTransitions.reset();
+        combatRounds.reset();
+    }
+
+    private static String commandName(String word) {
+        return JMX_DOMAIN + ":type=Command,name=" + ObjectName.quote(word);
+    }
+
+    private void register(Object mbean, String name) {
+        MBeanServer target = server;
+        if (target == null) {
+            return; // Not published yet; publish() registers everything that exists by then
+        }
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (!target.isRegistered(objectName)) {
+                target.registerMBean(mbean, objectName);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered concurrently by publish() and commandLatency()
+        } catch (JMException e) {
+            System.err.println("Could not publish metrics " + name + ": " + e.getMessage());
+        }
+    }
+}
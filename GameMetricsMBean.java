@@ -0,0 +1,27 @@
+/*
+ * The GameMetricsMBean interface is the JMX view of GameMetrics: game-wide counters,
+ * world load times, and operations to print or dump the full report. Per-command
+ * latencies are published separately, one LatencyHistogramMBean per command word.
+ * */
+
+package metrics;
+
+import java.io.IOException;
+
+public interface GameMetricsMBean {
+    long getCommandCount();
+
+    long getUnknownCommandCount();
+
+    long getRoomTransitions();
+
+    long getCombatRounds();
+
+    String[] getLoadTimes();
+
+    String report();
+
+    void dumpToFile(String path) throws IOException;
+
+    void reset();
+}
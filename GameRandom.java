@@ -0,0 +1,54 @@
+/*
+ * The GameRandom class is the game's seeded random number generator (SplitMix64).
+ * Its whole state is one long that can be read and restored, so a run can be
+ * replayed exactly from its seed. It allocates nothing and is not thread-safe;
+ * give each game session or worker its own instance.
+ * */
+
+package model;
+
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private long state;
+
+    // Constructor with a fixed seed, for reproducible runs
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    // Constructor with a seed taken from the clock
+    public GameRandom() {
+        this(mix(System.nanoTime() ^ Thread.currentThread().getId()));
+    }
+
+    // Method to get the next random int in [0, bound)
+    public int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) % bound);
+    }
+
+    // Method to get the next random double in [0, 1)
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    // Methods to save and restore the generator's position
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    // SplitMix64 finalizer; also used to derive independent seeds from a base seed
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
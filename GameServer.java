@@ -0,0 +1,403 @@
+/*
+ * The GameServer class runs Alice's Adventures as a TCP line-protocol server.
+ * The world is loaded once and shared read-only; each connection gets its own
+ * copy-on-write session of it plus its own Player, GameView and GameController.
+ *
+ * No thread waits on a connection. One selector thread (the one that calls serve)
+ * accepts connections and reads from all of them with non-blocking NIO, cutting the
+ * bytes into lines. When a session has new lines, its turn is run on a small pool of
+ * game threads: the controller plays every line received so far as one batch
+ * (GameController.playReadyInput) and prompts once, so a client that pipelines
+ * commands gets one write back for all of them. A session's turns never overlap, and
+ * an idle connection costs only its buffers. Replies are written without blocking;
+ * whatever the socket cannot take at once is sent by the selector thread when the
+ * client reads, and a session stops being read while MAX_UNSENT_BYTES are waiting.
+ * Sessions never touch the console; popups are replaced by plain-text screens.
+ * */
+
+package server;
+
+import controller.GameController;
+import model.GameMap;
+import model.InvalidRoomException;
+import model.Player;
+import view.GameIO;
+import view.GameView;
+import view.StreamIO;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4040;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_LINE_BYTES = StreamIO.MAX_LINE_LENGTH * 4; // Enough for any 1024 UTF-8 characters
+    private static final int MAX_UNSENT_BYTES = 1 << 20;
+    private static final int MAX_QUEUED_LINES = 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService turns; // Game threads shared by all sessions
+    private final GameMap world; // Shared template, never modified by sessions
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicBoolean serving = new AtomicBoolean();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE); // Selector thread only
+
+    // One connection: the lines read from it, its game, and the replies not yet sent
+    private final class Session implements GameIO, Runnable {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final Queue<String> lines = new ConcurrentLinkedQueue<>(); // Received, not yet played
+        private final AtomicInteger queuedLines = new AtomicInteger();
+        private volatile boolean inputEnded;
+        private final AtomicBoolean scheduled = new AtomicBoolean(); // Set while a turn is queued or running
+        private byte[] partialLine = new byte[64]; // Bytes of the line being received (selector thread only)
+        private int partialLength;
+        private GameController controller; // Created by the first turn (game threads only)
+        private final StringBuilder output = new StringBuilder(); // Written since the last flush
+        private final ArrayDeque<ByteBuffer> unsent = new ArrayDeque<>(); // Guarded by this
+        private int unsentBytes;
+        private boolean finished; // The game is over; close once everything is sent
+        private boolean closed;
+
+        Session(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        // Cuts the bytes just read into lines (selector thread); returns true if any line was completed
+        boolean receive(ByteBuffer bytes) {
+            boolean received = false;
+            while (bytes.hasRemaining()) {
+                byte b = bytes.get();
+                if (b == '\n') {
+                    addLine(decodeLine());
+                    received = true;
+                } else if (partialLength < MAX_LINE_BYTES) {
+                    if (partialLength == partialLine.length) {
+                        partialLine = Arrays.copyOf(partialLine, Math.min(partialLength * 2, MAX_LINE_BYTES));
+                    }
+                    partialLine[partialLength++] = b;
+                }
+            }
+            if (queuedLines.get() >= MAX_QUEUED_LINES) {
+                updateInterest(); // Stop reading until the game has caught up
+            }
+            return received;
+        }
+
+        private void addLine(String line) {
+            lines.add(line);
+            queuedLines.incrementAndGet();
+        }
+
+        // Marks the end of the input (selector thread); an unfinished last line still counts
+        void endInput() {
+            if (partialLength > 0) {
+                addLine(decodeLine());
+            }
+            inputEnded = true;
+            updateInterest();
+        }
+
+        private String decodeLine() {
+            int length = partialLength;
+            if (length > 0 && partialLine[length - 1] == '\r') {
+                length--;
+            }
+            partialLength = 0;
+            String line = new String(partialLine, 0, length, StandardCharsets.UTF_8);
+            return line.length() > StreamIO.MAX_LINE_LENGTH ? line.substring(0, StreamIO.MAX_LINE_LENGTH) : line;
+        }
+
+        // Queues a turn for this session, unless one is already queued or running
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    turns.execute(this);
+                } catch (RejectedExecutionException e) {
+                    close(); // The server is shutting down
+                }
+            }
+        }
+
+        // Plays the lines received so far (on a game thread)
+        @Override
+        public void run() {
+            try {
+                if (controller == null) {
+                    controller = new GameController(new Player(world.newSession()), new GameView(this, false));
+                    controller.begin();
+                }
+                boolean playing;
+                if (inputEnded && lines.isEmpty()) {
+                    controller.endInput(); // Everything received has been played
+                    playing = false;
+                } else {
+                    playing = controller.playReadyInput();
+                }
+                if (!playing) {
+                    finish();
+                }
+            } catch (InvalidRoomException | RuntimeException e) {
+                System.err.println("Session failed: " + e);
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            updateInterest(); // Reads again if the line queue was full
+            if ((!lines.isEmpty() || inputEnded) && !isFinished()) {
+                schedule(); // Input that arrived while the turn was finishing
+            }
+        }
+
+        @Override
+        public String readLine() {
+            String line = lines.poll();
+            if (line != null) {
+                queuedLines.decrementAndGet();
+            }
+            return line;
+        }
+
+        @Override
+        public boolean isInputReady() {
+            return !lines.isEmpty();
+        }
+
+        @Override
+        public void write(String text) {
+            output.append(text);
+        }
+
+        @Override
+        public void flush() {
+            if (output.length() == 0) {
+                return;
+            }
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(output.toString());
+            output.setLength(0);
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                unsent.add(bytes);
+                unsentBytes += bytes.remaining();
+                sendUnsent();
+            }
+        }
+
+        // Writes as much unsent output as the socket takes; the selector thread sends the rest
+        synchronized void sendUnsent() {
+            try {
+                while (!unsent.isEmpty()) {
+                    ByteBuffer bytes = unsent.peek();
+                    unsentBytes -= channel.write(bytes);
+                    if (bytes.hasRemaining()) {
+                        break;
+                    }
+                    unsent.poll();
+                }
+            } catch (IOException e) {
+                close(); // The client went away
+                return;
+            }
+            if (unsent.isEmpty() && finished) {
+                close();
+            } else {
+                updateInterest();
+            }
+        }
+
+        // Reads while there is room for more input and output, and waits to write while output is unsent
+        synchronized void updateInterest() {
+            if (!key.isValid()) {
+                return;
+            }
+            boolean reading = !inputEnded && unsentBytes <= MAX_UNSENT_BYTES && queuedLines.get() < MAX_QUEUED_LINES;
+            int ops = (reading ? SelectionKey.OP_READ : 0) | (unsent.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+                selector.wakeup();
+            }
+        }
+
+        synchronized boolean isFinished() {
+            return finished || closed;
+        }
+
+        // Closes the connection once the last reply has been sent
+        synchronized void finish() {
+            finished = true;
+            if (unsent.isEmpty()) {
+                close();
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unsent.clear();
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to clean up
+            }
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    public GameServer(int port, String mapFilePath, String itemsFilePath, String puzzlesFilePath,
+            String monstersFilePath) throws IOException, InvalidRoomException {
+        this(port, GameMap.load(mapFilePath, itemsFilePath, puzzlesFilePath, monstersFilePath));
+    }
+
+    // Constructor for a world that is already loaded (and possibly validated)
+    public GameServer(int port, GameMap world) throws IOException {
+        this.world = world.getWorld();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.serverChannel.configureBlocking(false);
+        this.selector = Selector.open();
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.turns = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "alice-turns");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Method to get the port the server is listening on (useful when started on port 0)
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public InetAddress getAddress() {
+        return serverChannel.socket().getInetAddress();
+    }
+
+    public int getActiveSessionCount() {
+        return activeSessions.get();
+    }
+
+    // Method to accept connections and read from them until the server is closed
+    public void serve() {
+        serving.set(true);
+        try {
+            while (serverChannel.isOpen()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Session session = (Session) key.attachment();
+                        if (key.isWritable()) {
+                            session.sendUnsent();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(session);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Server failed: " + e.getMessage());
+        } catch (ClosedSelectorException e) {
+            // The server was closed
+        } finally {
+            closeSessions();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Session session = new Session(channel);
+            activeSessions.incrementAndGet();
+            synchronized (session) {
+                session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            }
+            session.schedule(); // Shows the first room
+        } catch (IOException e) {
+            if (serverChannel.isOpen()) {
+                System.err.println("Failed to accept connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void read(Session session) {
+        readBuffer.clear();
+        int read;
+        try {
+            read = session.channel.read(readBuffer);
+        } catch (IOException e) {
+            read = -1; // Reset by the client; play what was received and end the game
+        }
+        if (read < 0) {
+            session.endInput();
+            session.schedule();
+            return;
+        }
+        readBuffer.flip();
+        if (session.receive(readBuffer)) {
+            session.schedule();
+        }
+    }
+
+    // Closes every connection once the selector thread has stopped
+    private void closeSessions() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Session) {
+                    ((Session) key.attachment()).close();
+                }
+            }
+            selector.close();
+        } catch (ClosedSelectorException | IOException e) {
+            // Already closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        if (serving.get()) {
+            selector.wakeup(); // serve returns and closes the sessions
+        } else {
+            selector.close();
+        }
+        turns.shutdown();
+    }
+}
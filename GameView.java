@@ -8,33 +8,143 @@ Here's a quick overview of the methods:
 
 displayMessage(String message): Prints a message to the console.
 displayInventory(Player player): Displays the contents of the player's inventory and completed puzzles.
-getUserInput(): Prompts the user for input and returns the entered command.
+getUserInput(): Prompts the user for input and returns the entered command (one of several
+    when the line holds commands separated by ';'; "\;" is a literal ';').
 displayHelp(): Displays a list of available commands to the player.
 
+Messages are collected in a reusable buffer and written to the GameIO in one go when the
+player is prompted (or when flushOutput is called), so each turn costs a single write and
+flush. When the player types ahead, or puts several commands on one line, the prompt is
+held back until they have all run, so the whole batch is written in one go as well.
+Output can also be discarded entirely, e.g. for benchmark runs.
+All input and output goes through a GameIO, so the same view can serve the console or a
+network session. When popups are disabled (e.g. for network sessions, or with no display)
+the inventory and help screens are written as plain text instead of opening Swing windows.
+The windows are created once (prewarmWindows builds them in the background at startup)
+and reused; the inventory window follows the player's change events, so opening either
+screen only posts a "show" to the Swing event thread. close() disposes of them when the
+game is over, so they do not keep the JVM running.
+
  * */
 
 package view;
 
 import model.Player;
 import model.Item;
-import javax.swing.*;
-import java.awt.*;
+import java.awt.GraphicsEnvironment;
 
-import java.util.Scanner;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 
 public class GameView {
-    private Scanner scanner;
+    public static final char COMMAND_SEPARATOR = ';';
+    private static final int MAX_PENDING_OUTPUT = 64 * 1024; // Written out early when a long batch gets this far
+
+    private GameIO io;
+    private boolean popupsEnabled;
+    private boolean outputDiscarded; // When true, nothing is ever written (benchmark runs)
+    private final StringBuilder pendingOutput = new StringBuilder(1024); // Output of the current turn
+    private final ArrayDeque<String> queuedCommands = new ArrayDeque<>(); // Rest of a "n; n; e" line
+    private InventoryWindow inventoryWindow; // Created by prewarmWindows or on first use
+    private HelpWindow helpWindow;
+    private Player watchedPlayer; // Player the inventory window follows
 
     public GameView() {
-        scanner = new Scanner(System.in);
+        this(new StreamIO(System.in, System.out, Charset.defaultCharset()), true);
+    }
+
+    public GameView(GameIO io, boolean popupsEnabled) {
+        this.io = io;
+        this.popupsEnabled = popupsEnabled;
     }
 
     public void displayMessage(String message) {
-        System.out.println(message);
+        if (outputDiscarded) {
+            return;
+        }
+        pendingOutput.append(message).append(System.lineSeparator());
+        if (pendingOutput.length() >= MAX_PENDING_OUTPUT) {
+            flushOutput();
+        }
+    }
+
+    // Method to display text that already ends with a line break (e.g. a room banner)
+    public void displayText(CharSequence text) {
+        if (outputDiscarded) {
+            return;
+        }
+        pendingOutput.append(text);
+        if (pendingOutput.length() >= MAX_PENDING_OUTPUT) {
+            flushOutput();
+        }
+    }
+
+    // Method to write everything displayed since the last flush in one go
+    public void flushOutput() {
+        if (pendingOutput.length() > 0) {
+            io.write(pendingOutput.toString());
+            pendingOutput.setLength(0);
+        }
+        io.flush();
+    }
+
+    // Method to switch between popup windows and plain-text screens for inventory and help
+    public void setPopupsEnabled(boolean popupsEnabled) {
+        this.popupsEnabled = popupsEnabled;
+    }
+
+    // Method to start building the inventory and help windows on the Swing event thread,
+    // so the first 'inventory' or 'help' opens at once
+    public void prewarmWindows() {
+        if (!GraphicsEnvironment.isHeadless()) {
+            inventoryWindow = inventoryWindow != null ? inventoryWindow : new InventoryWindow();
+            helpWindow = helpWindow != null ? helpWindow : new HelpWindow();
+        }
+    }
+
+    // Method to dispose of the inventory and help windows once the game is over
+    public void close() {
+        if (inventoryWindow != null) {
+            inventoryWindow.close();
+            inventoryWindow = null;
+            watchedPlayer = null;
+        }
+        if (helpWindow != null) {
+            helpWindow.close();
+            helpWindow = null;
+        }
+    }
+
+    // Method to have the inventory window follow a player (called whenever the game's player changes)
+    public void watchPlayer(Player player) {
+        if (inventoryWindow != null && player != watchedPlayer) {
+            inventoryWindow.watch(player);
+            watchedPlayer = player;
+        }
+    }
+
+    // Method to drop all output instead of writing it
+    public void setOutputDiscarded(boolean outputDiscarded) {
+        this.outputDiscarded = outputDiscarded;
+        pendingOutput.setLength(0);
+    }
+
+    public boolean isOutputDiscarded() {
+        return outputDiscarded;
     }
 
     public void displayInventoryPopup(Player player) {
-        JTextArea textArea = new JTextArea();
+        if (!popupsEnabled || GraphicsEnvironment.isHeadless()) {
+            displayMessage(buildInventoryText(player));
+            return;
+        }
+        prewarmWindows();
+        watchPlayer(player);
+        inventoryWindow.show();
+    }
+
+    // Method to build the inventory, puzzle, monster and stats summary shown by 'inventory'
+    private String buildInventoryText(Player player) {
         StringBuilder sb = new StringBuilder();
 
         sb.append("Inventory:\n");
@@ -68,68 +178,88 @@ public class GameView {
         sb.append("  - Health: ").append(player.getHealth()).append("\n");
         Item equipped = player.getEquippedItem();
         sb.append("  - Equipped: ").append(equipped != null ? equipped.getName() : "None").append("\n");
+        return sb.toString();
+    }
+
+    // Method to get the next command, prompting for it; returns null once the input has ended.
+    // A line can hold several commands separated by ';', handed out one per call without a
+    // prompt in between, and a line that was typed ahead is read without a prompt too, so the
+    // output of a whole batch of commands is written at once, with one prompt at the end.
+    public String getUserInput() {
+        if (queuedCommands.isEmpty()) {
+            if (!hasPendingInput()) {
+                prompt();
+            }
+            String line = io.readLine();
+            if (line == null) {
+                return null;
+            }
+            queueCommands(line);
+        }
+        return queuedCommands.poll();
+    }
 
-        textArea.setText(sb.toString());
-        textArea.setEditable(false);
-        textArea.setFont(new Font("Georgia", Font.PLAIN, 15));
-        textArea.setBackground(new Color(122, 95, 140)); // Dark background
-        textArea.setForeground(new Color(220, 220, 220)); // Light text
+    // Method to prompt for a command, writing everything displayed so far
+    public void prompt() {
+        if (!outputDiscarded) {
+            pendingOutput.append("Enter command: ");
+            flushOutput();
+        }
+    }
 
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new Dimension(500, 400));
+    // Method to split a line into its commands and queue them (a blank line is one empty command).
+    // "\;" is a literal ';', so an argument that contains ';' is written as e.g. "solve a\;b".
+    private void queueCommands(String line) {
+        if (line.indexOf(COMMAND_SEPARATOR) < 0) {
+            queuedCommands.add(line.trim());
+            return;
+        }
+        StringBuilder command = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length() && line.charAt(i + 1) == COMMAND_SEPARATOR) {
+                command.append(COMMAND_SEPARATOR);
+                i++;
+            } else if (c == COMMAND_SEPARATOR) {
+                queueCommand(command);
+            } else {
+                command.append(c);
+            }
+        }
+        queueCommand(command);
+        if (queuedCommands.isEmpty()) {
+            queuedCommands.add("");
+        }
+    }
 
-        JFrame frame = new JFrame("Alice's Inventory");
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        frame.getContentPane().add(scrollPane);
-        frame.pack();
-        frame.setLocationRelativeTo(null);
-        frame.setVisible(true);
+    private void queueCommand(StringBuilder command) {
+        String text = command.toString().trim();
+        if (!text.isEmpty()) {
+            queuedCommands.add(text);
+        }
+        command.setLength(0);
     }
 
-    public String getUserInput() {
-        System.out.print("Enter command: ");
-        return scanner.nextLine().trim();
+    // Method to tell whether commands from a line already read are still waiting to run
+    public boolean hasQueuedCommands() {
+        return !queuedCommands.isEmpty();
+    }
+
+    // Method to tell whether more input is already waiting: queued commands or a line typed ahead
+    public boolean hasPendingInput() {
+        return !queuedCommands.isEmpty() || io.isInputReady();
     }
 
     public void displayHelpWindow() {
-        JTextPane textPane = new JTextPane();
-        textPane.setContentType("text/html");
-
-        textPane.setText(
-            "<html><body style='font-family:Georgia,serif; font-size:13px; background-color:#111; color:#eee; padding:10px;'>" +
-            "<h2 style='color:#ba55d3; text-align:center;'>🖤 Wonderland Commands 🖤</h2>" +
-            "<p style='color:#ccc; text-align:center;'>Welcome, Alice ... Here is how you navigate the madness:</p>" +
-            "<ul style='list-style-type:square;'>" +
-            "<li><b style='color:#7fffd4;'>explore</b>: Search the shadows of the current room.</li>" +
-            "<li><b style='color:#7fffd4;'>pickup [item]</b>: Claim an item hidden in the dark.</li>" +
-            "<li><b style='color:#7fffd4;'>drop [item]</b>: Leave an item behind...perhaps forever.</li>" +
-            "<li><b style='color:#7fffd4;'>inspect [item]</b>: Reveal the secrets of a twisted artifact.</li>" +
-            "<li><b style='color:#7fffd4;'>inventory</b>: View what you’ve gathered from Wonderland’s wreckage.</li>" +
-            "<li><b style='color:#7fffd4;'>equip [item]</b>: Arm yourself for battle.</li>" +
-            "<li><b style='color:#7fffd4;'>unequip</b>: Set your weapon aside...for now.</li>" +
-            "<li><b style='color:#7fffd4;'>heal</b>: Use a magical item to regain your strength.</li>" +
-            "<li><b style='color:#7fffd4;'>examine monster</b>: Confront a creature of nightmares.</li>" +
-            "<li><b style='color:#7fffd4;'>solve [answer]</b>: Attempt to crack a riddle of madness.</li>" +
-            "<li><b style='color:#ff4500;'>n / e / s / w</b>: Navigate through twisted paths.</li>" +
-            "<li><b style='color:#ff6347;'>exit</b>: Wake up...if you still can.</li>" +
-            "</ul>" +
-            "<p style='text-align:center; color:#999;'>\"Wonderland has become quite strange. How is one to find her way?\"</p>" +
-            "</body></html>"
-        );
-
-        textPane.setEditable(false);
-
-        JScrollPane scrollPane = new JScrollPane(textPane);
-        scrollPane.setPreferredSize(new Dimension(540, 360));
-        scrollPane.getViewport().setBackground(Color.decode("#111"));
-
-        JFrame frame = new JFrame("Wonderland Help");
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        frame.getContentPane().add(scrollPane);
-        frame.getContentPane().setBackground(Color.decode("#111"));
-        frame.pack();
-        frame.setLocationRelativeTo(null);
-        frame.setVisible(true);
+        if (!popupsEnabled || GraphicsEnvironment.isHeadless()) {
+            displayMessage("Commands: explore, pickup [item], drop [item], inspect [item], inventory, "
+                    + "equip [item], equip best, unequip, heal, examine monster, fight, solve [answer], goto [room], save [name], load [name], n / e / s / w, exit "
+                    + "(several commands can go on one line, separated by ';'; type \\; for a literal ';')");
+            return;
+        }
+
+        prewarmWindows();
+        helpWindow.show();
     }
 
 }
\ No newline at end of file
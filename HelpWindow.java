@@ -0,0 +1,79 @@
+/*
+ * The HelpWindow class is the 'help' screen: one long-lived window whose HTML is
+ * parsed once, on the Swing event thread, when the window is created. Opening it
+ * again only shows the same window; closing it hides it. close() disposes of it when
+ * the game is over.
+ * */
+
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class HelpWindow {
+    private static final String HELP_HTML =
+        "<html><body style='font-family:Georgia,serif; font-size:13px; background-color:#111; color:#eee; padding:10px;'>" +
+        "<h2 style='color:#ba55d3; text-align:center;'>🖤 Wonderland Commands 🖤</h2>" +
+        "<p style='color:#ccc; text-align:center;'>Welcome, Alice ... Here is how you navigate the madness:</p>" +
+        "<ul style='list-style-type:square;'>" +
+        "<li><b style='color:#7fffd4;'>explore</b>: Search the shadows of the current room.</li>" +
+        "<li><b style='color:#7fffd4;'>pickup [item]</b>: Claim an item hidden in the dark.</li>" +
+        "<li><b style='color:#7fffd4;'>drop [item]</b>: Leave an item behind...perhaps forever.</li>" +
+        "<li><b style='color:#7fffd4;'>inspect [item]</b>: Reveal the secrets of a twisted artifact.</li>" +
+        "<li><b style='color:#7fffd4;'>inventory</b>: View what you’ve gathered from Wonderland’s wreckage.</li>" +
+        "<li><b style='color:#7fffd4;'>equip [item]</b>: Arm yourself for battle.</li>" +
+        "<li><b style='color:#7fffd4;'>equip best</b>: Take up the deadliest weapon you carry.</li>" +
+        "<li><b style='color:#7fffd4;'>unequip</b>: Set your weapon aside...for now.</li>" +
+        "<li><b style='color:#7fffd4;'>heal</b>: Use a magical item to regain your strength.</li>" +
+        "<li><b style='color:#7fffd4;'>examine monster</b>: Confront a creature of nightmares.</li>" +
+        "<li><b style='color:#7fffd4;'>solve [answer]</b>: Attempt to crack a riddle of madness.</li>" +
+        "<li><b style='color:#ff4500;'>n / e / s / w</b>: Navigate through twisted paths.</li>" +
+        "<li><b style='color:#ff4500;'>goto [room]</b>: Follow the shortest path to a room you name.</li>" +
+        "<li><b style='color:#7fffd4;'>save [name] / load [name]</b>: Keep your progress...or return to it.</li>" +
+        "<li><b style='color:#ff6347;'>exit</b>: Wake up...if you still can.</li>" +
+        "</ul>" +
+        "<p style='text-align:center; color:#999;'>\"Wonderland has become quite strange. How is one to find her way?\"</p>" +
+        "</body></html>";
+
+    private JFrame frame; // Only touched on the event thread
+
+    // Constructor that starts building the (hidden) window on the event thread
+    public HelpWindow() {
+        SwingUtilities.invokeLater(this::build);
+    }
+
+    // Method to bring the window up
+    public void show() {
+        SwingUtilities.invokeLater(() -> {
+            if (!frame.isVisible()) {
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+            }
+            frame.toFront();
+        });
+    }
+
+    // Method to dispose of the window for good; a hidden window keeps the Swing event
+    // thread, and with it the JVM, running
+    public void close() {
+        SwingUtilities.invokeLater(() -> frame.dispose());
+    }
+
+    // Builds the window's components; runs on the event thread
+    private void build() {
+        JTextPane textPane = new JTextPane();
+        textPane.setContentType("text/html");
+        textPane.setText(HELP_HTML);
+        textPane.setEditable(false);
+
+        JScrollPane scrollPane = new JScrollPane(textPane);
+        scrollPane.setPreferredSize(new Dimension(540, 360));
+        scrollPane.getViewport().setBackground(Color.decode("#111"));
+
+        frame = new JFrame("Wonderland Help");
+        frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE); // Closing only hides it, ready for next time
+        frame.getContentPane().add(scrollPane);
+        frame.getContentPane().setBackground(Color.decode("#111"));
+        frame.pack();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The Inventory class is the player's ItemBag with two extra indexes: items are kept
+ * in buckets ordered by heal points and by attack points, so the best healing item
+ * and the best weapon are found in O(log n) and stay correct as items are picked up,
+ * dropped or used. Within a bucket the item picked up first wins, just as the old
+ * inventory scan did. Every item added or removed is reported to the owner's
+ * PlayerListener, if it has one.
+ * */
+
+package model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class Inventory extends ItemBag {
+    private final TreeMap<Integer, ItemBag> byHealPoints = new TreeMap<>();
+    private final TreeMap<Integer, ItemBag> byAttackPoints = new TreeMap<>();
+    private PlayerListener listener; // Set by the owning Player, or null
+
+    // Method to get the item that heals the most, or null if nothing heals
+    public Item getBestHealingItem() {
+        Map.Entry<Integer, ItemBag> best = byHealPoints.lastEntry();
+        return best != null ? best.getValue().first() : null;
+    }
+
+    // Method to get the item with the most attack points, or null if there is no weapon
+    public Item getBestWeapon() {
+        Map.Entry<Integer, ItemBag> best = byAttackPoints.lastEntry();
+        return best != null ? best.getValue().first() : null;
+    }
+
+    // Method used by Player to pass its listener on
+    void setListener(PlayerListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    protected void onAdded(Item item) {
+        if (item.getHealPoints() > 0) {
+            byHealPoints.computeIfAbsent(item.getHealPoints(), points -> new ItemBag()).add(item);
+        }
+        if (item.getAttackPoints() > 0) {
+            byAttackPoints.computeIfAbsent(item.getAttackPoints(), points -> new ItemBag()).add(item);
+        }
+        if (listener != null) {
+            listener.itemAdded(item);
+        }
+    }
+
+    @Override
+    protected void onRemoved(Item item) {
+        if (item.getHealPoints() > 0) {
+            removeFromBucket(byHealPoints, item.getHealPoints(), item);
+        }
+        if (item.getAttackPoints() > 0) {
+            removeFromBucket(byAttackPoints, item.getAttackPoints(), item);
+        }
+        if (listener != null) {
+            listener.itemRemoved(item);
+        }
+    }
+
+    private static void removeFromBucket(TreeMap<Integer, ItemBag> buckets, int points, Item item) {
+        ItemBag bucket = buckets.get(points);
+        if (bucket != null && bucket.remove(item) && bucket.isEmpty()) {
+            buckets.remove(points);
+        }
+    }
+}
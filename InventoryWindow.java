@@ -0,0 +1,200 @@
+/*
+ * The InventoryWindow class is the 'inventory' screen: one long-lived window that
+ * is built once on the Swing event thread and then only shown, hidden and updated
+ * (close() disposes of it when the game is over).
+ * It listens to the player (PlayerListener), and each change is applied to the
+ * window on its own: an item picked up adds one row, a hit changes the health
+ * label. Nothing is rebuilt when the screen is opened.
+ *
+ * Every method may be called from the game thread. Swing work is posted to the
+ * event thread (in order, so the window is always built before it is used); the
+ * game thread only reads the values it passes along.
+ * */
+
+package view;
+
+import model.Item;
+import model.Player;
+import model.PlayerListener;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class InventoryWindow implements PlayerListener {
+    private static final Font FONT = new Font("Georgia", Font.PLAIN, 15);
+    private static final Color BACKGROUND = new Color(122, 95, 140); // Dark background
+    private static final Color FOREGROUND = new Color(220, 220, 220); // Light text
+
+    // Everything below is only touched on the event thread
+    private JFrame frame;
+    private final DefaultListModel<Item> items = new DefaultListModel<>();
+    private final DefaultListModel<String> puzzles = new DefaultListModel<>();
+    private final DefaultListModel<String> monsters = new DefaultListModel<>();
+    private JLabel healthLabel;
+    private JLabel equippedLabel;
+
+    // Constructor that starts building the (hidden) window on the event thread
+    public InventoryWindow() {
+        SwingUtilities.invokeLater(this::build);
+    }
+
+    // Method to follow a player: the window is filled with the player's current state
+    // once, and from then on only the changes are applied
+    public void watch(Player player) {
+        List<Item> itemList = new ArrayList<>(player.getInventory());
+        List<String> puzzleList = new ArrayList<>(player.getCompletedPuzzles());
+        List<String> monsterList = new ArrayList<>(player.getDefeatedMonsters());
+        int health = player.getHealth();
+        Item equipped = player.getEquippedItem();
+        player.setListener(this);
+        SwingUtilities.invokeLater(() -> {
+            items.clear();
+            itemList.forEach(items::addElement);
+            puzzles.clear();
+            puzzleList.forEach(puzzles::addElement);
+            monsters.clear();
+            monsterList.forEach(monsters::addElement);
+            showHealth(health);
+            showEquipped(equipped);
+        });
+    }
+
+    // Method to bring the window up
+    public void show() {
+        SwingUtilities.invokeLater(() -> {
+            if (!frame.isVisible()) {
+                frame.setLocationRelativeTo(null);
+                frame.setVisible(true);
+            }
+            frame.toFront();
+        });
+    }
+
+    // Method to dispose of the window for good; a hidden window keeps the Swing event
+    // thread, and with it the JVM, running
+    public void close() {
+        SwingUtilities.invokeLater(() -> frame.dispose());
+    }
+
+    @Override
+    public void itemAdded(Item item) {
+        SwingUtilities.invokeLater(() -> items.addElement(item));
+    }
+
+    @Override
+    public void itemRemoved(Item item) {
+        SwingUtilities.invokeLater(() -> items.removeElement(item));
+    }
+
+    @Override
+    public void healthChanged(int health) {
+        SwingUtilities.invokeLater(() -> showHealth(health));
+    }
+
+    @Override
+    public void equippedChanged(Item equippedItem) {
+        SwingUtilities.invokeLater(() -> showEquipped(equippedItem));
+    }
+
+    @Override
+    public void puzzleCompleted(String puzzle) {
+        SwingUtilities.invokeLater(() -> puzzles.addElement(puzzle));
+    }
+
+    @Override
+    public void monsterDefeated(String monsterName) {
+        SwingUtilities.invokeLater(() -> monsters.addElement(monsterName));
+    }
+
+    private void showHealth(int health) {
+        healthLabel.setText("  - Health: " + health);
+    }
+
+    private void showEquipped(Item equippedItem) {
+        equippedLabel.setText("  - Equipped: " + (equippedItem != null ? equippedItem.getName() : "None"));
+    }
+
+    // Builds the window's components; runs on the event thread
+    private void build() {
+        JPanel content = new JPanel();
+        content.setLayout(new BoxLayout(content, BoxLayout.Y_AXIS));
+        content.setBackground(BACKGROUND);
+        content.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+
+        JList<Item> itemList = section(content, "Inventory:", items, "  - No items collected.");
+        itemList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list, "  - " + ((Item) value).getName(), index, false, false);
+            }
+        });
+        section(content, "Completed Puzzles:", puzzles, "  - None");
+        section(content, "Defeated Monsters:", monsters, "  - None");
+
+        content.add(label("Player Stats:"));
+        healthLabel = label("  - Health: ");
+        equippedLabel = label("  - Equipped: None");
+        content.add(healthLabel);
+        content.add(equippedLabel);
+
+        JScrollPane scrollPane = new JScrollPane(content);
+        scrollPane.setPreferredSize(new Dimension(500, 400));
+
+        frame = new JFrame("Alice's Inventory");
+        frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE); // Closing only hides it, ready for next time
+        frame.getContentPane().add(scrollPane);
+        frame.pack();
+    }
+
+    // Adds a titled list to the window that shows a placeholder line while it is empty
+    private static <T> JList<T> section(JPanel content, String title, ListModel<T> model, String emptyText) {
+        content.add(label(title));
+        JList<T> list = new JList<>(model) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (getModel().getSize() == 0) {
+                    g.setColor(getForeground());
+                    g.drawString(emptyText, 2, g.getFontMetrics().getAscent());
+                }
+            }
+
+            @Override
+            public Dimension getPreferredSize() {
+                Dimension size = super.getPreferredSize();
+                return getModel().getSize() == 0 ? new Dimension(size.width, getFontMetrics(getFont()).getHeight()) : size;
+            }
+
+            @Override
+            public Dimension getMaximumSize() {
+                return new Dimension(Integer.MAX_VALUE, getPreferredSize().height);
+            }
+        };
+        list.setFont(FONT);
+        list.setBackground(BACKGROUND);
+        list.setForeground(FOREGROUND);
+        list.setFocusable(false);
+        list.setAlignmentX(Component.LEFT_ALIGNMENT);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> owner, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(owner, "  - " + value, index, false, false);
+            }
+        });
+        content.add(list);
+        content.add(Box.createVerticalStrut(12));
+        return list;
+    }
+
+    private static JLabel label(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(FONT);
+        label.setForeground(FOREGROUND);
+        label.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return label;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The ItemBag class holds the items in a room or in the player's inventory.
+ * Items keep the order they were added in (for 'explore' and the inventory screen),
+ * and are also indexed by their case-folded name, so finding, adding and removing
+ * an item takes constant time no matter how many items are in the bag. The same
+ * item, or several items with the same name, may be in the bag more than once.
+ * */
+
+package model;
+
+import java.util.AbstractCollection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+public class ItemBag extends AbstractCollection<Item> {
+    // One entry in the bag, linked both in insertion order and among items with the same name
+    private static class Node {
+        private final Item item;
+        private Node previous;
+        private Node next;
+        private Node previousSameName;
+        private Node nextSameName;
+
+        Node(Item item) {
+            this.item = item;
+        }
+    }
+
+    private final Map<String, Node> firstByName = new HashMap<>(); // Folded name -> oldest item with that name
+    private final Map<String, Node> lastByName = new HashMap<>();  // Folded name -> newest item with that name
+    private Node head;
+    private Node tail;
+    private int size;
+    private int modCount;
+
+    public ItemBag() {
+    }
+
+    // Constructor that copies another collection of items, keeping its order
+    public ItemBag(Iterable<Item> items) {
+        for (Item item : items) {
+            add(item);
+        }
+    }
+
+    @Override
+    public boolean add(Item item) {
+        Node node = new Node(item);
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+            node.previous = tail;
+        }
+        tail = node;
+
+        String key = fold(item.getName());
+        Node last = lastByName.get(key);
+        if (last == null) {
+            firstByName.put(key, node);
+        } else {
+            last.nextSameName = node;
+            node.previousSameName = last;
+        }
+        lastByName.put(key, node);
+
+        size++;
+        modCount++;
+        onAdded(item);
+        return true;
+    }
+
+    // Method to find the first item with the given name (ignoring case), or null
+    public Item find(String name) {
+        Node node = firstByName.get(fold(name));
+        return node != null ? node.item : null;
+    }
+
+    // Method to find the first item with the given name (ignoring case) that matches a filter
+    public Item find(String name, Predicate<Item> filter) {
+        for (Node node = firstByName.get(fold(name)); node != null; node = node.nextSameName) {
+            if (filter.test(node.item)) {
+                return node.item;
+            }
+        }
+        return null;
+    }
+
+    // Method to remove and return the first item with the given name (ignoring case), or null
+    public Item removeByName(String name) {
+        Node node = firstByName.get(fold(name));
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node.item;
+    }
+
+    // Removes the first occurrence of this exact item
+    @Override
+    public boolean remove(Object object) {
+        if (!(object instanceof Item)) {
+            return false;
+        }
+        Item item = (Item) object;
+        for (Node node = firstByName.get(fold(item.getName())); node != null; node = node.nextSameName) {
+            if (node.item == item) {
+                unlink(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof Item)) {
+            return false;
+        }
+        Item item = (Item) object;
+        return find(item.getName(), candidate -> candidate == item) != null;
+    }
+
+    // Method to get the oldest item in the bag, or null if it is empty
+    public Item first() {
+        return head != null ? head.item : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        while (head != null) {
+            unlink(head);
+        }
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return new Iterator<Item>() {
+            private Node next = head;
+            private Node lastReturned;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Item next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = next;
+                next = next.next;
+                return lastReturned.item;
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                unlink(lastReturned);
+                lastReturned = null;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    // Hooks for subclasses that keep extra indexes over the items
+    protected void onAdded(Item item) {
+    }
+
+    protected void onRemoved(Item item) {
+    }
+
+    private void unlink(Node node) {
+        if (node.previous == null) {
+            head = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+
+        String key = fold(node.item.getName());
+        if (node.previousSameName == null) {
+            if (node.nextSameName == null) {
+                firstByName.remove(key);
+            } else {
+                firstByName.put(key, node.nextSameName);
+            }
+        } else {
+            node.previousSameName.nextSameName = node.nextSameName;
+        }
+        if (node.nextSameName == null) {
+            if (node.previousSameName == null) {
+                lastByName.remove(key);
+            } else {
+                lastByName.put(key, node.previousSameName);
+            }
+        } else {
+            node.nextSameName.previousSameName = node.previousSameName;
+        }
+
+        size--;
+        modCount++;
+        onRemoved(node.item);
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
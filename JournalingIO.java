@@ -0,0 +1,93 @@
+/*
+ * The JournalingIO class is a GameIO that writes every line the player types to a
+ * CommandJournal before handing it to the game. It can also replay the commands
+ * recovered from a journal first: while it does, the game's output is dropped
+ * except for the last turn, which is shown once the player is back at the prompt,
+ * so a recovered session looks just like it did before the crash.
+ * */
+
+package view;
+
+import model.CommandJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+public class JournalingIO implements GameIO {
+    private final GameIO live;
+    private final CommandJournal journal;
+    private final List<String> recovered; // Commands to replay before reading live input
+    private Runnable onRecovered = () -> { }; // Called once the replay is done, e.g. to turn popups back on
+    private final StringBuilder lastTurn = new StringBuilder(); // Output of the replayed turn in progress
+    private int replayed;
+    private boolean recovering;
+
+    public JournalingIO(GameIO live, CommandJournal journal) {
+        this(live, journal, List.of());
+    }
+
+    // Constructor that replays recovered commands (without journaling them again) before going live
+    public JournalingIO(GameIO live, CommandJournal journal, List<String> recovered) {
+        this.live = live;
+        this.journal = journal;
+        this.recovered = recovered;
+        this.recovering = !recovered.isEmpty();
+    }
+
+    // Method to run something once the recovered commands have been replayed
+    public void setOnRecovered(Runnable onRecovered) {
+        this.onRecovered = onRecovered;
+    }
+
+    @Override
+    public String readLine() {
+        if (recovering) {
+            if (replayed < recovered.size()) {
+                lastTurn.setLength(0);
+                return recovered.get(replayed++);
+            }
+            recovering = false;
+            onRecovered.run();
+            live.write("(Recovered your game: " + replayed + " commands replayed.)" + System.lineSeparator());
+            live.write(lastTurn.toString());
+            live.flush();
+        }
+
+        String line = live.readLine();
+        if (line != null) {
+            try {
+                journal.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return line;
+    }
+
+    @Override
+    public boolean isInputReady() {
+        return !recovering && live.isInputReady(); // Replayed turns are prompted one by one, as they were played
+    }
+
+    @Override
+    public void write(String text) {
+        if (recovering) {
+            lastTurn.append(text);
+        } else {
+            live.write(text);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (!recovering) {
+            live.flush();
+        }
+    }
+
+    // Method to get the number of recovered commands replayed so far
+    public int getReplayedCount() {
+        return replayed;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * The LatencyHistogramMBean interface is the JMX view of one command's
+ * LatencyHistogram: how often it ran and how long it took, in microseconds.
+ * */
+
+package metrics;
+
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+}
@@ -3,25 +3,211 @@ The Main class initializes the game by creating instances of Player, GameView, a
 It then starts the game by calling the startGame method on the GameController. 
 The code is wrapped in a try-catch block to handle potential exceptions during initialization, 
 such as file reading errors or invalid room data.
+
+Run with "--compile-world" to turn the text files into a World.snapshot instead of playing;
+later launches then load the snapshot for a near-instant start.
+Run with "--timings" to print how long each world file took to load.
+Run with "--quiet" to discard all game output (for timing scripted runs piped into stdin).
+Run with "--server [port]" to host one game per TCP connection instead of playing on the console.
+Run with "--replay [--threads N] [--repeat N] script..." to play replay scripts headlessly (see ReplayRunner).
+Console games journal every command to session.journal (with a checkpoint every 1000
+commands); if the game is killed, the next launch replays the journal and carries on
+where it stopped. Run with "--no-journal" to turn this off. A second game started in the
+same folder while one is running is not journaled, and a journal left by a different world
+is refused rather than replayed.
+Console games can be saved and loaded ('save [name]', 'load [name]') and are autosaved to
+autosave.sav every 30 seconds of play.
+Run with "--metrics <file>" to write the command latency report to a file when the game ends.
+Run with "--validate" to check the world (see WorldValidator) and refuse to start if it has errors,
+or "--validation-report <file>" to write everything the check finds to a file and start anyway.
+The same metrics are always published over JMX (see GameMetrics).
 */
 
+import model.AutoSaver;
+import model.CommandJournal;
+import model.GameMap;
+import model.GameRandom;
+import model.SaveGame;
 import model.Player;
+import model.WorldSnapshot;
+import model.WorldValidator;
+import view.GameIO;
 import view.GameView;
+import view.JournalingIO;
+import view.StreamIO;
 import controller.GameController;
+import server.GameServer;
+import metrics.GameMetrics;
+import replay.ReplayRunner;
 import model.InvalidRoomException;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
         try {
-            // Provide four parameters for the Player constructor
-            Player player = new Player("Map.txt", "Item.txt", "Puzzle.txt", "Monsters.txt");
-            GameView view = new GameView();
-            GameController controller = new GameController(player, view);
-            controller.startGame();
+            if (args.length > 0 && args[0].equals("--compile-world")) {
+                compileWorld();
+                return;
+            }
+
+            GameMetrics.getDefault().publish();
+            String metricsFile = optionValue(args, "--metrics");
+            if (metricsFile != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpMetrics(metricsFile)));
+            }
+
+            if (args.length > 0 && args[0].equals("--replay")) {
+                ReplayRunner.main(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
+            boolean serve = args.length > 0 && args[0].equals("--server");
+            int port = serve ? serverPort(args) : -1;
+            if (serve && port < 0) {
+                System.err.println("Usage: java Main --server [port]  (port is a number from 0 to 65535; default "
+                        + GameServer.DEFAULT_PORT + ")");
+                System.exit(1);
+            }
+
+            GameMap world = GameMap.load("Map.txt", "Item.txt", "Puzzle.txt", "Monsters.txt");
+            if (!validateWorld(world, args)) {
+                System.exit(1);
+            }
+
+            if (serve) {
+                try (GameServer server = new GameServer(port, world)) {
+                    System.out.println("Wonderland is listening on port " + server.getPort() + "...");
+                    server.serve();
+                }
+                return;
+            }
+
+            // Every game is a session of the loaded world
+            Player player = new Player(world.newSession());
+            if (Arrays.asList(args).contains("--timings")) {
+                for (Map.Entry<String, Long> entry : player.getMap().getLoadTimes().entrySet()) {
+                    System.out.printf("Loaded %s in %.2f ms%n", entry.getKey(), entry.getValue() / 1e6);
+                }
+            }
+            GameIO console = new StreamIO(System.in, System.out, Charset.defaultCharset());
+            if (Arrays.asList(args).contains("--no-journal")) {
+                play(player, new GameView(console, true), new GameRandom(), null, args);
+                return;
+            }
+
+            // Journal every command; after a crash, rebuild the game from the last checkpoint and the journal
+            CommandJournal journal;
+            try {
+                journal = new CommandJournal(Path.of(CommandJournal.DEFAULT_FILE_NAME), GameRandom.mix(System.nanoTime()),
+                        world.getFingerprint());
+            } catch (CommandJournal.LockedException e) {
+                System.err.println(e.getMessage() + " This game will not be journaled.");
+                play(player, new GameView(console, true), new GameRandom(), null, args);
+                return;
+            } catch (IOException e) {
+                System.err.println("Cannot open the journal: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            GameRandom random = new GameRandom(journal.getSeed());
+            if (journal.getRecoveredCheckpoint() != null) {
+                SaveGame saved = SaveGame.read(journal.getRecoveredCheckpoint(), player.getMap().getWorld());
+                player = saved.getPlayer();
+                random.setState(saved.getRandomState());
+            }
+            JournalingIO io = new JournalingIO(console, journal, journal.getRecoveredCommands());
+            GameView view = new GameView(io, !journal.hasRecovery()); // No popups while replaying
+            io.setOnRecovered(() -> view.setPopupsEnabled(true));
+            boolean clean = false;
+            try {
+                play(player, view, random, journal, args);
+                clean = true;
+            } finally {
+                journal.close(clean);
+            }
         } catch (InvalidRoomException | IOException e) {
             e.printStackTrace();
         }
     }
+
+    // Method to play a console game until the player quits or the input ends
+    private static void play(Player player, GameView view, GameRandom random, CommandJournal journal, String[] args) {
+        view.setOutputDiscarded(Arrays.asList(args).contains("--quiet"));
+        if (!view.isOutputDiscarded()) {
+            view.prewarmWindows();
+        }
+        GameController controller = new GameController(player, view, random);
+        controller.setSaveDirectory(Path.of("."));
+        controller.setJournal(journal);
+        try (AutoSaver autoSaver = new AutoSaver(Path.of(AutoSaver.DEFAULT_FILE_NAME), AutoSaver.DEFAULT_INTERVAL_MILLIS)) {
+            controller.setAutoSaver(autoSaver);
+            controller.startGame();
+        } finally {
+            view.close(); // Otherwise the hidden windows keep the JVM running after the game
+        }
+    }
+
+    // Method to get the value that follows an option, or null if the option is not given
+    private static String optionValue(String[] args, String option) {
+        int index = Arrays.asList(args).indexOf(option);
+        return index >= 0 && index + 1 < args.length ? args[index + 1] : null;
+    }
+
+    // Method to get the port given after --server (the default if none is given), or -1 if it is not a valid port
+    private static int serverPort(String[] args) {
+        if (args.length < 2 || args[1].startsWith("--")) {
+            return GameServer.DEFAULT_PORT;
+        }
+        try {
+            int port = Integer.parseInt(args[1]);
+            return port >= 0 && port <= 65535 ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Method to check the world when asked to: --validation-report writes every finding to a
+    // file, and --validate (strict) makes any error stop the game from starting. Returns
+    // false when the game must not start.
+    private static boolean validateWorld(GameMap world, String[] args) throws IOException {
+        boolean strict = Arrays.asList(args).contains("--validate");
+        String reportFile = optionValue(args, "--validation-report");
+        if (!strict && reportFile == null) {
+            return true;
+        }
+        WorldValidator.Report report = new WorldValidator(world).validate();
+        if (reportFile != null) {
+            report.writeTo(Path.of(reportFile));
+            System.out.println("World validation: " + report.getSummary() + " Written to " + reportFile + ".");
+        }
+        if (strict && report.hasErrors()) {
+            System.err.println("World validation failed: " + report.getSummary());
+            report.getFindings().stream().filter(f -> f.getKind().isError()).limit(20).forEach(System.err::println);
+            return false;
+        }
+        return true;
+    }
+
+    // Method to write the metrics report, used when the game ends (or the server is stopped)
+    private static void dumpMetrics(String path) {
+        try {
+            GameMetrics.getDefault().dumpToFile(path);
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Method to compile the text files into a binary world snapshot
+    private static void compileWorld() throws IOException, InvalidRoomException {
+        long start = System.nanoTime();
+        Path snapshotPath = WorldSnapshot.snapshotPathFor("Map.txt");
+        int roomCount = WorldSnapshot.compile("Map.txt", "Item.txt", "Puzzle.txt", "Monsters.txt", snapshotPath).getRoomCount();
+        System.out.println("Compiled " + roomCount + " rooms to " + snapshotPath + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
 }
\ No newline at end of file
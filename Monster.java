@@ -18,6 +18,11 @@ public class Monster {
         this.itemDrop = itemDrop;
     }
 
+    // Copy constructor, so each game session fights its own copy of a world monster
+    public Monster(Monster other) {
+        this(other.name, other.description, other.health, other.attackPower, other.defense, other.itemDrop);
+    }
+
     // Getters
     public String getName() {
         return name;
@@ -67,7 +72,7 @@ public class Monster {
 
     // Method to reduce health when the monster takes damage
     public void takeDamage(int damage) {
-        int actualDamage = Math.max(damage - this.defense, 1); // Always deal at least 1
+        int actualDamage = CombatRules.damageToMonster(damage, this.defense); // Always deal at least 1
         this.health -= actualDamage;
     }
 
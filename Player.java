@@ -1,41 +1,57 @@
 package model;
 
+import metrics.GameMetrics;
+
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class Player {
     private Room currentRoom;
     private GameMap map;
-    private List<Item> inventory; // Player's inventory
+    private Inventory inventory; // Player's inventory, indexed by name, heal and attack points
     private List<String> completedPuzzles; // List of completed puzzle descriptions and answers
     private List<String> defeatedMonsters; // List of defeated monster names
     private int health; // Player's health
     private Item equippedItem; // Currently equipped item
+    private Consumer<String> output = System.out::println; // Where the player's messages are written
+    private PlayerListener listener; // Told about inventory and stat changes, or null
     public static final int MAX_PUZZLE_ATTEMPTS = 3;
 
     // Default constructor
     public Player() throws InvalidRoomException, FileNotFoundException, IOException {
-        map = new GameMap();
-        currentRoom = map.getRoom("1");
-        inventory = new ArrayList<>();
-        completedPuzzles = new ArrayList<>();
-        defeatedMonsters = new ArrayList<>();
-        health = 100;
+        this("Map.txt", "Item.txt", "Puzzle.txt", "Monsters.txt");
     }
 
     // Constructor with file paths
     public Player(String mapFilePath, String itemsFilePath, String puzzlesFilePath, String monstersFilePath)
             throws InvalidRoomException, IOException {
-        map = new GameMap(mapFilePath, itemsFilePath, puzzlesFilePath, monstersFilePath);
+        this(GameMap.load(mapFilePath, itemsFilePath, puzzlesFilePath, monstersFilePath).newSession());
+    }
+
+    // Constructor for a new game on an already loaded map (usually world.newSession())
+    public Player(GameMap map) throws InvalidRoomException {
+        this.map = map;
         currentRoom = map.getRoom("1");
-        inventory = new ArrayList<>();
+        inventory = new Inventory();
         completedPuzzles = new ArrayList<>();
         defeatedMonsters = new ArrayList<>();
         health = 100;
     }
 
+    // Method to send this player's messages somewhere other than the console (e.g. a GameView)
+    public void setOutput(Consumer<String> output) {
+        this.output = output;
+    }
+
+    // Method to be told about changes to the inventory, health, equipped item, puzzles and monsters
+    public void setListener(PlayerListener listener) {
+        this.listener = listener;
+        inventory.setListener(listener);
+    }
+
     public String getCurrentRoomName() {
         return currentRoom.getName();
     }
@@ -57,15 +73,55 @@ public class Player {
             throw new InvalidRoomException("Oh dear! Alice wandered off the map and vanished into butterflies!");
         }
         currentRoom = map.getRoom(nextRoomID);
+        GameMetrics.getDefault().recordRoomTransition();
         if (!currentRoom.isVisited()) {
             currentRoom.setVisited(true);
         } else {
-            System.out.println();
-            System.out.println("This looks awfully familiar...");
+            output.accept("");
+            output.accept("This looks awfully familiar...");
         }
         currentRoom.resetPuzzleAttempts();
     }
 
+    // Method to walk along the shortest route to the room with the given name. Alice stops
+    // early in any room where a living monster blocks the way.
+    public void travelTo(String roomName) throws InvalidRoomException {
+        if (roomName.isEmpty()) {
+            output.accept("Where to? Type 'goto' followed by a room name.");
+            return;
+        }
+        RoutingTable routes = map.getRoutingTable();
+        if (!routes.hasRoomNamed(roomName)) {
+            output.accept("Alice has never heard of a place called " + roomName + ".");
+            return;
+        }
+        List<String> route = routes.findRoute(currentRoom.getRoomID(), roomName);
+        if (route == null) {
+            output.accept("There is no way from here to the " + roomName + ".");
+            return;
+        }
+        if (route.isEmpty()) {
+            output.accept("Alice is already in the " + currentRoom.getName() + ".");
+            return;
+        }
+
+        int steps = 0;
+        for (String roomID : route) {
+            currentRoom = map.getRoom(roomID);
+            GameMetrics.getDefault().recordRoomTransition();
+            currentRoom.setVisited(true);
+            currentRoom.resetPuzzleAttempts();
+            steps++;
+            Monster monster = currentRoom.getMonster();
+            if (monster != null && !monster.isDead() && steps < route.size()) {
+                output.accept("Alice stops in the " + currentRoom.getName() + " after " + steps
+                        + (steps == 1 ? " room" : " rooms") + ": a " + monster.getName() + " blocks the way!");
+                return;
+            }
+        }
+        output.accept("Alice travels " + steps + (steps == 1 ? " room" : " rooms") + " to the " + currentRoom.getName() + ".");
+    }
+
     public String getNextRoomID(String direction) {
         switch (direction.toLowerCase()) {
             case "north":
@@ -86,31 +142,29 @@ public class Player {
     }
 
     public void explore() {
-        List<Item> items = currentRoom.getItems();
+        ItemBag items = currentRoom.getItems();
         if (items.isEmpty()) {
-            System.out.println("The room is empty. No items to explore.");
+            output.accept("The room is empty. No items to explore.");
         } else {
-            System.out.println("Items available in the room:");
+            output.accept("Items available in the room:");
             for (Item item : items) {
-                System.out.println("- " + item.getName());
+                output.accept("- " + item.getName());
             }
         }
     }
 
     public void pickUpItem(String itemName) {
-        List<Item> items = currentRoom.getItems();
-        for (Item item : items) {
-            if (item.getName().equalsIgnoreCase(itemName)) {
-                inventory.add(item);
-                currentRoom.removeItem(item);
-                System.out.println("Picked up: " + item.getName() + " from " + currentRoom.getName() + " room.");
-                return;
-            }
+        Item item = currentRoom.getItems().find(itemName);
+        if (item != null) {
+            inventory.add(item);
+            currentRoom.removeItem(item);
+            output.accept("Picked up: " + item.getName() + " from " + currentRoom.getName() + " room.");
+            return;
         }
-        System.out.println("Item not found in the room.");
+        output.accept("Item not found in the room.");
     }
 
-    public List<Item> getInventory() {
+    public Inventory getInventory() {
         return inventory;
     }
 
@@ -127,26 +181,27 @@ public class Player {
     }
 
     public void inspectItem(String itemName) {
-        for (Item item : inventory) {
-            if (item.getName().equalsIgnoreCase(itemName)) {
-                System.out.println("Inspecting item: " + item.getName());
-                System.out.println(item.getDescription());
-                return;
-            }
+        Item item = inventory.find(itemName);
+        if (item != null) {
+            output.accept("Inspecting item: " + item.getName());
+            output.accept(item.getDescription());
+            return;
         }
-        System.out.println("Item not found in inventory.");
+        output.accept("Item not found in inventory.");
     }
 
     public void dropItem(String itemName) {
-        for (Item item : inventory) {
-            if (item.getName().equalsIgnoreCase(itemName)) {
-                inventory.remove(item);
-                currentRoom.addItem(item);
-                System.out.println("Dropped: " + item.getName() + " and placed in " + currentRoom.getName() + " room.");
-                return;
-            }
+        Item item = inventory.removeByName(itemName);
+        if (item != null) {
+            currentRoom.addItem(item);
+            output.accept("Dropped: " + item.getName() + " and placed in " + currentRoom.getName() + " room.");
+            return;
         }
-        System.out.println("Item not found in inventory.");
+        output.accept("Item not found in inventory.");
+    }
+
+    public GameMap getMap() {
+        return map;
     }
 
     public Room getCurrentRoom() {
@@ -156,19 +211,23 @@ public class Player {
     public void handlePuzzle(String answer) {
         if (currentRoom.hasPuzzle()) {
             if (currentRoom.solvePuzzle(answer)) {
-                completedPuzzles.add(currentRoom.getPuzzle().getDescription() + " - " + answer);
+                String puzzle = currentRoom.getPuzzle().getDescription() + " - " + answer;
+                completedPuzzles.add(puzzle);
+                if (listener != null) {
+                    listener.puzzleCompleted(puzzle);
+                }
                 currentRoom.addPuzzle(null);
-                System.out.println("Correct! The puzzle is solved.");
+                output.accept("Correct! The puzzle is solved.");
             } else {
                 int remainingAttempts = MAX_PUZZLE_ATTEMPTS - currentRoom.getPuzzleAttempts();
                 if (remainingAttempts <= 0) {
-                    System.out.println("You have reached the maximum number of attempts for this puzzle.");
+                    output.accept("You have reached the maximum number of attempts for this puzzle.");
                 } else {
-                    System.out.println("Incorrect answer. " + remainingAttempts + " attempts remaining. Try again.");
+                    output.accept("Incorrect answer. " + remainingAttempts + " attempts remaining. Try again.");
                 }
             }
         } else {
-            System.out.println("There is no puzzle in this room.");
+            output.accept("There is no puzzle in this room.");
         }
     }
 
@@ -178,23 +237,21 @@ public class Player {
 
     public void attack(Monster monster) {
         int damage = calculateDamage();
-        System.out.println("You attack the monster and deal " + damage + " damage!");
+        output.accept("You attack the monster and deal " + damage + " damage!");
         monster.takeDamage(damage);
     }
 
     private int calculateDamage() {
-        if (equippedItem != null && equippedItem.getAttackPoints() > 0) {
-            return equippedItem.getAttackPoints();
-        }
-        return 10;
+        return CombatRules.playerDamage(equippedItem != null ? equippedItem.getAttackPoints() : 0);
     }
 
     public void takeDamage(int damage) {
         this.health -= damage;
-        System.out.println("You took " + damage + " damage! Health is now " + this.health);
+        output.accept("You took " + damage + " damage! Health is now " + this.health);
         if (this.health < 0) {
             this.health = 0;
         }
+        healthChanged();
     }
 
     public int getHealth() {
@@ -203,50 +260,81 @@ public class Player {
 
     public void setHealth(int newHealth) {
         this.health = newHealth;
+        healthChanged();
     }
 
     public void equipItem(String itemName) {
-        for (Item item : inventory) {
-            if (item.getName().equalsIgnoreCase(itemName) && item.getAttackPoints() > 0) {
-                equippedItem = item;
-                System.out.println("Equipped " + item.getName() + ". Attack now uses " + item.getAttackPoints() + " damage.");
-                return;
-            }
+        Item item = inventory.find(itemName, candidate -> candidate.getAttackPoints() > 0);
+        if (item != null) {
+            equippedItem = item;
+            equippedChanged();
+            output.accept("Equipped " + item.getName() + ". Attack now uses " + item.getAttackPoints() + " damage.");
+            return;
+        }
+        output.accept("No such equippable item in your inventory.");
+    }
+
+    // Method to equip the weapon with the most attack points in the inventory
+    public void equipBestItem() {
+        Item item = inventory.getBestWeapon();
+        if (item != null) {
+            equippedItem = item;
+            equippedChanged();
+            output.accept("Equipped " + item.getName() + ". Attack now uses " + item.getAttackPoints() + " damage.");
+        } else {
+            output.accept("No such equippable item in your inventory.");
         }
-        System.out.println("No such equippable item in your inventory.");
     }
 
     public void unequipItem() {
         if (equippedItem != null) {
-            System.out.println("Unequipped " + equippedItem.getName() + ".");
+            output.accept("Unequipped " + equippedItem.getName() + ".");
             equippedItem = null;
+            equippedChanged();
         } else {
-            System.out.println("No item is currently equipped.");
+            output.accept("No item is currently equipped.");
         }
     }
 
     public void heal() {
-        Item bestHealingItem = null;
-
-        for (Item item : inventory) {
-            if (item.getHealPoints() > 0) {
-                if (bestHealingItem == null || item.getHealPoints() > bestHealingItem.getHealPoints()) {
-                    bestHealingItem = item;
-                }
-            }
-        }
+        Item bestHealingItem = inventory.getBestHealingItem();
 
         if (bestHealingItem != null) {
             health += bestHealingItem.getHealPoints();
-            System.out.println("Healed with " + bestHealingItem.getName() + " for " + bestHealingItem.getHealPoints() + " HP.");
-            System.out.println("Current health: " + health);
+            healthChanged();
+            output.accept("Healed with " + bestHealingItem.getName() + " for " + bestHealingItem.getHealPoints() + " HP.");
+            output.accept("Current health: " + health);
             inventory.remove(bestHealingItem);
         } else {
-            System.out.println("No healing items available in inventory.");
+            output.accept("No healing items available in inventory.");
         }
     }
 
+    // Method used by SaveGame to put a restored player back where they were
+    void restoreState(Room room, int health, Item equippedItem) {
+        this.currentRoom = room;
+        this.health = health;
+        this.equippedItem = equippedItem;
+        healthChanged();
+        equippedChanged();
+    }
+
     public void addDefeatedMonster(String monsterName) {
         defeatedMonsters.add(monsterName);
+        if (listener != null) {
+            listener.monsterDefeated(monsterName);
+        }
+    }
+
+    private void healthChanged() {
+        if (listener != null) {
+            listener.healthChanged(health);
+        }
+    }
+
+    private void equippedChanged() {
+        if (listener != null) {
+            listener.equippedChanged(equippedItem);
+        }
     }
 }
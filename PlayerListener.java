@@ -0,0 +1,29 @@
+/*
+ * The PlayerListener interface is told about every change to a player that is shown
+ * on the inventory screen: items entering or leaving the inventory, health, the
+ * equipped item, solved puzzles and defeated monsters. Listeners are called on the
+ * thread that changes the player (the game thread), so they should only hand the
+ * change on, e.g. to the Swing event thread.
+ * */
+
+package model;
+
+public interface PlayerListener {
+    default void itemAdded(Item item) {
+    }
+
+    default void itemRemoved(Item item) {
+    }
+
+    default void healthChanged(int health) {
+    }
+
+    default void equippedChanged(Item equippedItem) {
+    }
+
+    default void puzzleCompleted(String puzzle) {
+    }
+
+    default void monsterDefeated(String monsterName) {
+    }
+}
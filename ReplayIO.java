@@ -0,0 +1,84 @@
+/*
+ * The ReplayIO class is a GameIO that types a ReplayScript's commands as fast as the
+ * game asks for them. It keeps only the output of the current command and checks it
+ * against that command's "#expect" checkpoints when the next prompt is answered (or
+ * when the game ends), collecting a message for every checkpoint that fails.
+ * */
+
+package replay;
+
+import view.GameIO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ReplayIO implements GameIO {
+    private static final int SNIPPET_LENGTH = 160; // Output shown with a failed checkpoint
+
+    private final ReplayScript script;
+    private final List<String> commands;
+    private final StringBuilder output = new StringBuilder(1024); // Output of the current command
+    private final List<String> failures = new ArrayList<>();
+    private int step; // Commands typed so far; their output is being collected
+    private boolean stepChecked;
+
+    public ReplayIO(ReplayScript script) {
+        this.script = script;
+        this.commands = script.getCommands();
+    }
+
+    @Override
+    public String readLine() {
+        checkStep();
+        if (step >= commands.size()) {
+            return null;
+        }
+        output.setLength(0);
+        stepChecked = false;
+        return commands.get(step++);
+    }
+
+    @Override
+    public void write(String text) {
+        output.append(text);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    // Method to check the last command's checkpoints once the game has ended
+    public void finish() {
+        checkStep();
+    }
+
+    // Method to get the number of commands typed so far
+    public int getCommandsRead() {
+        return step;
+    }
+
+    // Method to get a message for every failed checkpoint
+    public List<String> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    private void checkStep() {
+        if (stepChecked) {
+            return;
+        }
+        stepChecked = true;
+        for (ReplayScript.Checkpoint checkpoint : script.getCheckpoints(step)) {
+            if (output.indexOf(checkpoint.getText()) < 0) {
+                String after = step == 0 ? "at the start" : "after '" + commands.get(step - 1) + "' (command " + step + ")";
+                failures.add(script.getName() + ":" + checkpoint.getLineNumber() + ": expected \"" + checkpoint.getText()
+                        + "\" " + after + ", got: " + snippet());
+            }
+        }
+    }
+
+    private String snippet() {
+        String text = output.toString().replace(System.lineSeparator(), " | ").trim();
+        return text.length() > SNIPPET_LENGTH ? text.substring(0, SNIPPET_LENGTH) + "..." : text;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * The ReplayRunner class plays replay scripts through the real GameController as fast
+ * as possible, for regression and load runs without anyone at the keyboard. The world
+ * is loaded once; each script gets its own session, a GameView with popups replaced
+ * by text, and a GameRandom seeded from the script, so every run is repeatable.
+ * Scripts can be repeated and spread over several threads. For each script it reports
+ * the runs, commands typed, mean and worst wall time per run, commands per second and
+ * the checkpoint results, followed by any failed checkpoints.
+ *
+ * Usage:
+ *   java replay.ReplayRunner [--threads N] [--repeat N] script...
+ * (or "java Main --replay ..."). Exits with status 1 if any checkpoint failed.
+ * */
+
+package replay;
+
+import controller.GameController;
+import model.GameMap;
+import model.GameRandom;
+import model.InvalidRoomException;
+import model.Player;
+import view.GameView;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ReplayRunner {
+    // The outcome of playing one script once
+    public static class Result {
+        private final String scriptName;
+        private final int commands;
+        private final long nanos;
+        private final int checkpoints;
+        private final List<String> failures;
+
+        Result(String scriptName, int commands, long nanos, int checkpoints, List<String> failures) {
+            this.scriptName = scriptName;
+            this.commands = commands;
+            this.nanos = nanos;
+            this.checkpoints = checkpoints;
+            this.failures = failures;
+        }
+
+        public String getScriptName() {
+            return scriptName;
+        }
+
+        public int getCommands() {
+            return commands;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public int getCheckpoints() {
+            return checkpoints;
+        }
+
+        public List<String> getFailures() {
+            return failures;
+        }
+    }
+
+    private final GameMap world;
+
+    public ReplayRunner(GameMap world) {
+        this.world = world.getWorld();
+    }
+
+    // Method to play one script in a fresh session of the world
+    public Result play(ReplayScript script) throws InvalidRoomException {
+        ReplayIO io = new ReplayIO(script);
+        long start = System.nanoTime();
+        Player player = new Player(world.newSession());
+        GameController controller = new GameController(player, new GameView(io, false), new GameRandom(script.getSeed()));
+        controller.startGame();
+        io.finish();
+        long nanos = System.nanoTime() - start;
+        return new Result(script.getName(), io.getCommandsRead(), nanos, script.getCheckpointCount(), io.getFailures());
+    }
+
+    public static void main(String[] args) {
+        int threads = 1;
+        int repeat = 1;
+        List<Path> scriptPaths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--repeat") && i + 1 < args.length) {
+                repeat = Integer.parseInt(args[++i]);
+            } else {
+                scriptPaths.add(Path.of(args[i]));
+            }
+        }
+        if (scriptPaths.isEmpty()) {
+            System.err.println("Usage: java replay.ReplayRunner [--threads N] [--repeat N] script...");
+            System.exit(2);
+        }
+
+        try {
+            List<ReplayScript> scripts = new ArrayList<>();
+            for (Path path : scriptPaths) {
+                scripts.add(ReplayScript.load(path));
+            }
+            GameMap world = GameMap.load("Map.txt", "Item.txt", "Puzzle.txt", "Monsters.txt");
+            boolean passed = run(new ReplayRunner(world), scripts, threads, repeat);
+            System.exit(passed ? 0 : 1);
+        } catch (IOException | InvalidRoomException | IllegalArgumentException e) {
+            System.err.println("Replay failed: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    // Method to play every script 'repeat' times on 'threads' threads and print the report;
+    // returns true if every checkpoint passed
+    public static boolean run(ReplayRunner runner, List<ReplayScript> scripts, int threads, int repeat)
+            throws InvalidRoomException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> runs = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int r = 0; r < repeat; r++) {
+                for (ReplayScript script : scripts) {
+                    runs.add(pool.submit(() -> runner.play(script)));
+                }
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> run : runs) {
+                results.add(run.get());
+            }
+            report(results, System.nanoTime() - start);
+            return results.stream().allMatch(result -> result.getFailures().isEmpty());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidRoomException) {
+                throw (InvalidRoomException) e.getCause();
+            }
+            throw new IllegalStateException("Replay crashed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Prints one line per script (runs of the same script are added together) and the failures
+    private static void report(List<Result> results, long wallNanos) {
+        Map<String, List<Result>> byScript = new LinkedHashMap<>();
+        for (Result result : results) {
+            byScript.computeIfAbsent(result.getScriptName(), name -> new ArrayList<>()).add(result);
+        }
+
+        System.out.printf("%-28s %6s %9s %10s %10s %12s  %s%n", "script", "runs", "commands", "mean ms", "max ms",
+                "commands/s", "checkpoints");
+        long totalCommands = 0;
+        Map<String, Integer> failures = new LinkedHashMap<>(); // Failure -> number of runs it happened in
+        for (Map.Entry<String, List<Result>> entry : byScript.entrySet()) {
+            long commands = 0;
+            long nanos = 0;
+            long maxNanos = 0;
+            int checkpoints = 0;
+            int failed = 0;
+            for (Result result : entry.getValue()) {
+                commands += result.getCommands();
+                nanos += result.getNanos();
+                maxNanos = Math.max(maxNanos, result.getNanos());
+                checkpoints += result.getCheckpoints();
+                failed += result.getFailures().size();
+                for (String failure : result.getFailures()) {
+                    failures.merge(failure, 1, Integer::sum);
+                }
+            }
+            int runs = entry.getValue().size();
+            System.out.printf("%-28s %6d %9d %10.3f %10.3f %12.0f  %d/%d passed%n", entry.getKey(), runs, commands,
+                    nanos / 1e6 / runs, maxNanos / 1e6, commands / (nanos / 1e9), checkpoints - failed, checkpoints);
+            totalCommands += commands;
+        }
+
+        int totalFailures = failures.values().stream().mapToInt(Integer::intValue).sum();
+        System.out.printf("%nTotal: %d runs, %d commands in %.2f ms (%.0f commands/s), %d failed checkpoint(s)%n",
+                results.size(), totalCommands, wallNanos / 1e6, totalCommands / (wallNanos / 1e9), totalFailures);
+        for (Map.Entry<String, Integer> failure : failures.entrySet()) {
+            System.out.println("FAILED " + failure.getKey() + (failure.getValue() > 1 ? " (" + failure.getValue() + " runs)" : ""));
+        }
+    }
+}
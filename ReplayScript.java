@@ -0,0 +1,108 @@
+/*
+ * The ReplayScript class is a parsed replay script: the commands to type, in order,
+ * and the output checkpoints to verify along the way. Script files are plain text,
+ * one command per line, as they would be typed at the prompt:
+ *
+ *   # Lines starting with '#' are comments; blank lines are ignored
+ *   #seed 42                  seed for the session's random rolls (default 1)
+ *   #expect Alice wanders     checkpoint for the output before the first command
+ *   pickup vorpal blade
+ *   #expect Picked up: Vorpal Blade
+ *
+ * An "#expect <text>" line checks that <text> appears in the output of the command
+ * just before it (everything written until the next prompt is answered).
+ * */
+
+package replay;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ReplayScript {
+    public static final long DEFAULT_SEED = 1;
+    private static final String EXPECT = "#expect ";
+    private static final String SEED = "#seed ";
+
+    // An expected piece of output and the script line it came from
+    public static class Checkpoint {
+        private final int lineNumber;
+        private final String text;
+
+        Checkpoint(int lineNumber, String text) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private final String name;
+    private final List<String> commands = new ArrayList<>();
+    // checkpoints.get(0) is checked against the output before the first command,
+    // checkpoints.get(i) against the output of command i (1-based)
+    private final List<List<Checkpoint>> checkpoints = new ArrayList<>();
+    private long seed = DEFAULT_SEED;
+
+    // Constructor that parses the lines of a script
+    public ReplayScript(String name, List<String> lines) {
+        this.name = name;
+        checkpoints.add(new ArrayList<>());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.startsWith(EXPECT)) {
+                checkpoints.get(commands.size()).add(new Checkpoint(i + 1, line.substring(EXPECT.length()).trim()));
+            } else if (line.startsWith(SEED)) {
+                try {
+                    seed = Long.parseLong(line.substring(SEED.length()).trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(name + ":" + (i + 1) + ": invalid seed: " + line);
+                }
+            } else if (!line.isEmpty() && !line.startsWith("#")) {
+                commands.add(line);
+                checkpoints.add(new ArrayList<>());
+            }
+        }
+    }
+
+    // Method to read and parse a script file
+    public static ReplayScript load(Path path) throws IOException {
+        return new ReplayScript(path.getFileName().toString(), Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Method to get the checkpoints for the output of a command (1-based; 0 is the opening output)
+    public List<Checkpoint> getCheckpoints(int step) {
+        return Collections.unmodifiableList(checkpoints.get(step));
+    }
+
+    // Method to count every checkpoint in the script
+    public int getCheckpointCount() {
+        int count = 0;
+        for (List<Checkpoint> step : checkpoints) {
+            count += step.size();
+        }
+        return count;
+    }
+}
@@ -1,57 +1,82 @@
 /*
- * The Room class represents a room in the game and manages its attributes, 
- * including connected rooms, items, and puzzles. It provides methods to add, remove, 
- * and retrieve items and puzzles, as well as methods to attempt solving puzzles 
+ * The Room class represents a room in the game and manages its attributes,
+ * including connected rooms, items, and puzzles. It provides methods to add, remove,
+ * and retrieve items and puzzles, as well as methods to attempt solving puzzles
  * and track the number of attempts. This class is essential for maintaining the
  * state and interactions of each room in the game.
+ * A Room is a lightweight view of one index in a WorldGraph: its ID, name,
+ * description and exits are read-only views of the shared graph, and only the
+ * state a game changes (visited, items, puzzle, attempts, monster) is held by the
+ * Room itself, so a session can never change the world other sessions see.
+ * Every change to that state bumps the room's version, so text rendered from the
+ * room (such as the banner shown on every turn) can be kept with it and reused
+ * until the room changes.
  * */
 
 package model;
-import java.util.ArrayList;
-import java.util.List;
 
 public class Room {
-    private String roomID;
-    private String name;
+    private final WorldGraph graph;
+    private final int index;
     private boolean isVisited;
-    private String description;
-    private String northRoomID;
-    private String eastRoomID;
-    private String southRoomID;
-    private String westRoomID;
-    private List<Item> items;
+    private ItemBag items; // Items in the room, indexed by name
     private Puzzle puzzle;
     private int puzzleAttempts;
     private Monster monster;  // Monster in the room, if any
+    private int version; // Bumped on every change to the room's state
+    private String renderedText; // Text rendered from the room at renderedVersion, or null
+    private int renderedVersion = -1;
 
+    // Constructor for a room of its own, outside any loaded world
     public Room(String roomID, String name, boolean isVisited, String description, String northRoomID, String eastRoomID, String southRoomID, String westRoomID) {
-        this.roomID = roomID;
-        this.name = name;
+        this.graph = new WorldGraph(1);
+        this.index = graph.addRoom(roomID, name, isVisited, description, northRoomID, eastRoomID, southRoomID, westRoomID);
+        graph.linkExits();
         this.isVisited = isVisited;
-        this.description = description;
-        this.northRoomID = northRoomID;
-        this.eastRoomID = eastRoomID;
-        this.southRoomID = southRoomID;
-        this.westRoomID = westRoomID;
-        this.items = new ArrayList<>();
+        this.items = new ItemBag();
         this.puzzleAttempts = 0;
     }
 
-    // Getters and setters for roomID, name, isVisited, description, etc.
-    public String getRoomID() {
-        return roomID;
+    // Constructor used when a game session first touches a room of the world: the
+    // room starts out in the state the world gives it, with its own item list and monster
+    Room(WorldGraph graph, int index) {
+        this.graph = graph;
+        this.index = index;
+        this.isVisited = graph.isVisited(index);
+        this.items = new ItemBag();
+        for (Item item : graph.getItems(index)) {
+            items.add(item);
+        }
+        this.puzzle = graph.getPuzzle(index);
+        Monster template = graph.getMonster(index);
+        this.monster = template != null ? new Monster(template) : null;
     }
 
-    public void setRoomID(String roomID) {
-        this.roomID = roomID;
+    // Copy constructor: the copy shares the room's graph entry and copies its state,
+    // with an item list and monster of its own
+    public Room(Room template) {
+        this.graph = template.graph;
+        this.index = template.index;
+        this.isVisited = template.isVisited;
+        this.items = new ItemBag(template.items);
+        this.puzzle = template.puzzle;
+        this.puzzleAttempts = template.puzzleAttempts;
+        this.monster = template.monster != null ? new Monster(template.monster) : null;
     }
 
-    public String getName() {
-        return name;
+    // Method to get the room's index in its world's graph
+    public int getIndex() {
+        return index;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    // ID, name, description and exits belong to the shared world and are read-only here;
+    // only the room's game state (visited, items, puzzle, attempts, monster) can change
+    public String getRoomID() {
+        return graph.getRoomID(index);
+    }
+
+    public String getName() {
+        return graph.getName(index);
     }
 
     public boolean isVisited() {
@@ -59,65 +84,59 @@ public class Room {
     }
 
     public void setVisited(boolean isVisited) {
-        this.isVisited = isVisited;
+        if (this.isVisited != isVisited) {
+            this.isVisited = isVisited;
+            changed();
+        }
     }
 
     public String getDescription() {
-        return description;
-    }
-
-    public void setDescription(String description) {
-        this.description = description;
+        return graph.getDescription(index);
     }
 
     public String getNorthRoomID() {
-        return northRoomID;
-    }
-
-    public void setNorthRoomID(String northRoomID) {
-        this.northRoomID = northRoomID;
+        return graph.getExitID(index, WorldGraph.NORTH);
     }
 
     public String getEastRoomID() {
-        return eastRoomID;
-    }
-
-    public void setEastRoomID(String eastRoomID) {
-        this.eastRoomID = eastRoomID;
+        return graph.getExitID(index, WorldGraph.EAST);
     }
 
     public String getSouthRoomID() {
-        return southRoomID;
-    }
-
-    public void setSouthRoomID(String southRoomID) {
-        this.southRoomID = southRoomID;
+        return graph.getExitID(index, WorldGraph.SOUTH);
     }
 
     public String getWestRoomID() {
-        return westRoomID;
-    }
-
-    public void setWestRoomID(String westRoomID) {
-        this.westRoomID = westRoomID;
+        return graph.getExitID(index, WorldGraph.WEST);
     }
 
     public void addItem(Item item) {
         items.add(item);
+        changed();
     }
 
-    public List<Item> getItems() {
+    // Method to get the room's items; change them through addItem, removeItem and
+    // removeAllItems, so the room's version follows
+    public ItemBag getItems() {
         return items;
     }
 
     // Method to remove an item from the room
     public void removeItem(Item item) {
         items.remove(item);
+        changed();
+    }
+
+    // Method to remove every item from the room
+    public void removeAllItems() {
+        items.clear();
+        changed();
     }
 
     // Method to add a puzzle to the room
     public void addPuzzle(Puzzle puzzle) {
         this.puzzle = puzzle;
+        changed();
     }
 
     // Method to get the puzzle in the room
@@ -136,23 +155,34 @@ public class Room {
             return true;
         } else {
             puzzleAttempts++;
+            changed();
             return false;
         }
     }
 
     // Method to reset puzzle attempts
     public void resetPuzzleAttempts() {
-        puzzleAttempts = 0;
+        if (puzzleAttempts != 0) {
+            puzzleAttempts = 0;
+            changed();
+        }
+    }
+
+    // Method to restore the number of puzzle attempts (used when loading a saved game)
+    public void setPuzzleAttempts(int puzzleAttempts) {
+        this.puzzleAttempts = puzzleAttempts;
+        changed();
     }
 
     // Method to get the number of puzzle attempts
     public int getPuzzleAttempts() {
         return puzzleAttempts;
     }
-    
+
  // Method to add a monster to the room
     public void addMonster(Monster monster) {
         this.monster = monster;
+        changed();
     }
 
     // Method to get the monster in the room
@@ -160,9 +190,38 @@ public class Room {
     public Monster getMonster() {
         return monster; // Simply return the monster in the room
     }
-    
+
     public void removeMonster() {
         this.monster = null;
+        changed();
+    }
+
+    // Method to get the room's state version, bumped whenever its items, puzzle, puzzle
+    // attempts, monster or visited flag change
+    public int getVersion() {
+        return version;
+    }
+
+    // Method to get the text last rendered from the room (see setRenderedText), or null
+    // if the room has changed since or no text was kept
+    public String getRenderedText() {
+        return renderedVersion == version ? renderedText : null;
+    }
+
+    // Method to tell whether the room is unchanged since it was last rendered
+    public boolean isUnchangedSinceRendered() {
+        return renderedVersion == version;
+    }
+
+    // Method to record that the room was rendered in its current state, keeping the text
+    // (if not null) until the room changes
+    public void setRenderedText(String renderedText) {
+        this.renderedText = renderedText;
+        this.renderedVersion = version;
+    }
+
+    private void changed() {
+        version++;
     }
 
 }
\ No newline at end of file
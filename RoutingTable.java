@@ -0,0 +1,379 @@
+/*
+ * The RoutingTable class finds shortest routes between rooms for the 'goto' command.
+ * It is built once per world from the WorldGraph's exit table (a wall "0" or an exit
+ * to a missing room becomes -1), and a handful of landmark rooms store their distance
+ * to and from every room.
+ *
+ * Routes are found with A* using the landmark distances as the estimate (the ALT
+ * technique): by the triangle inequality, the distance from a room to the target is
+ * at least |d(L, target) - d(L, room)| for any landmark L, which steers the search
+ * straight at the target instead of flooding the map, so queries on 100k-room maps
+ * only look at a small part of it. Distances are stored as chars (saturating at
+ * 65534), which keeps the estimate a safe lower bound while using 4 bytes per room
+ * per landmark. Rooms in a different connected part of the map are rejected without
+ * any search.
+ *
+ * A RoutingTable never changes after it is built and is shared by every session of a
+ * world; each route search borrows its scratch arrays from a pool.
+ * */
+
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class RoutingTable {
+    public static final int MAX_LANDMARKS = 8;
+    private static final int NO_ROOM = -1;
+    private static final char UNREACHABLE = Character.MAX_VALUE;
+    private static final char MAX_DISTANCE = Character.MAX_VALUE - 1; // Longer distances are stored as this
+
+    private final WorldGraph graph; // Room IDs and their indexes
+    private final int roomCount;
+    private final Map<String, Integer> firstByName; // Folded room name -> first room index with that name
+    private final int[] nextSameName; // Room index -> next room index with the same name, or NO_ROOM
+    private final int[] exits; // 4 per room, in north, east, south, west order
+    private final int[] component; // Room index -> connected part of the map (ignoring exit direction)
+    private final char[][] distanceFrom; // [landmark][room]: steps from the landmark to the room
+    private final char[][] distanceTo; // [landmark][room]: steps from the room to the landmark
+    private final ConcurrentLinkedQueue<Search> searches = new ConcurrentLinkedQueue<>();
+
+    public RoutingTable(WorldGraph graph) {
+        this.graph = graph;
+        int count = graph.getRoomCount();
+        roomCount = count;
+        firstByName = new HashMap<>();
+        nextSameName = new int[count];
+        Map<String, Integer> lastByName = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            nextSameName[i] = NO_ROOM;
+            String name = fold(graph.getName(i));
+            Integer last = lastByName.put(name, i);
+            if (last == null) {
+                firstByName.put(name, i);
+            } else {
+                nextSameName[last] = i;
+            }
+        }
+
+        exits = Arrays.copyOf(graph.getExitTable(), count * 4);
+        for (int i = 0; i < exits.length; i++) {
+            exits[i] = Math.max(exits[i], NO_ROOM); // An exit to a missing room is treated as a wall
+        }
+
+        // Incoming exits in compressed form, for distances *to* a landmark
+        int[] incomingStart = new int[count + 1];
+        for (int exit : exits) {
+            if (exit != NO_ROOM) {
+                incomingStart[exit + 1]++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            incomingStart[i + 1] += incomingStart[i];
+        }
+        int[] incoming = new int[incomingStart[count]];
+        int[] fill = Arrays.copyOf(incomingStart, count);
+        for (int i = 0; i < exits.length; i++) {
+            if (exits[i] != NO_ROOM) {
+                incoming[fill[exits[i]]++] = i / 4;
+            }
+        }
+
+        component = findComponents(incomingStart, incoming);
+        int landmarkCount = Math.min(MAX_LANDMARKS, count);
+        distanceFrom = new char[landmarkCount][];
+        distanceTo = new char[landmarkCount][];
+        chooseLandmarks(incomingStart, incoming);
+    }
+
+    // Method to check whether any room has the given name (ignoring case)
+    public boolean hasRoomNamed(String name) {
+        return firstByName.containsKey(fold(name));
+    }
+
+    // Method to find the shortest route from a room to the nearest room with the given name
+    // (ignoring case). Returns the IDs of the rooms to walk through, ending with the target,
+    // an empty list if the start room already has that name, or null if no such room can be reached.
+    public List<String> findRoute(String fromRoomID, String targetName) {
+        int from = graph.indexOf(fromRoomID);
+        Integer first = firstByName.get(fold(targetName));
+        if (from == WorldGraph.NO_ROOM || first == null) {
+            return null;
+        }
+
+        int[] best = null;
+        for (int target = first; target != NO_ROOM; target = nextSameName[target]) {
+            if (target == from) {
+                return Collections.emptyList();
+            }
+            if (component[target] != component[from]) {
+                continue;
+            }
+            int[] route = search(from, target, best != null ? best.length : Integer.MAX_VALUE);
+            if (route != null && (best == null || route.length < best.length)) {
+                best = route;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        List<String> route = new ArrayList<>(best.length);
+        for (int index : best) {
+            route.add(graph.getRoomID(index));
+        }
+        return route;
+    }
+
+    // Method to get the number of rooms in the table
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    // A* from one room to another; returns the rooms after 'from' up to and including 'target',
+    // or null if the target cannot be reached in fewer than 'limit' steps
+    private int[] search(int from, int target, int limit) {
+        Search search = searches.poll();
+        if (search == null) {
+            search = new Search(roomCount);
+        }
+        try {
+            return search.run(from, target, limit);
+        } finally {
+            searches.offer(search);
+        }
+    }
+
+    // Lower bound on the number of steps from a room to the target
+    private int estimate(int room, int target) {
+        int estimate = 0;
+        for (int l = 0; l < distanceFrom.length; l++) {
+            char fromLandmarkToTarget = distanceFrom[l][target];
+            char fromLandmarkToRoom = distanceFrom[l][room];
+            if (fromLandmarkToTarget != UNREACHABLE && fromLandmarkToRoom != UNREACHABLE) {
+                estimate = Math.max(estimate, fromLandmarkToTarget - fromLandmarkToRoom);
+            }
+            char fromRoomToLandmark = distanceTo[l][room];
+            char fromTargetToLandmark = distanceTo[l][target];
+            if (fromRoomToLandmark != UNREACHABLE && fromTargetToLandmark != UNREACHABLE) {
+                estimate = Math.max(estimate, fromRoomToLandmark - fromTargetToLandmark);
+            }
+        }
+        return estimate;
+    }
+
+    // Picks landmarks far apart from each other: each new landmark is the room farthest from
+    // the ones chosen so far (rooms no landmark reaches yet are picked first)
+    private void chooseLandmarks(int[] incomingStart, int[] incoming) {
+        int[] nearest = new int[roomCount];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int landmark = 0;
+        for (int l = 0; l < distanceFrom.length; l++) {
+            distanceFrom[l] = breadthFirst(landmark, null, null);
+            distanceTo[l] = breadthFirst(landmark, incomingStart, incoming);
+            int farthest = landmark;
+            for (int i = 0; i < nearest.length; i++) {
+                int distance = distanceFrom[l][i] == UNREACHABLE ? Integer.MAX_VALUE : distanceFrom[l][i];
+                nearest[i] = Math.min(nearest[i], distance);
+                if (nearest[i] > nearest[farthest]) {
+                    farthest = i;
+                }
+            }
+            landmark = farthest;
+        }
+    }
+
+    // Steps from a room to every room (along exits), or to it (along incoming exits when given)
+    private char[] breadthFirst(int start, int[] incomingStart, int[] incoming) {
+        char[] distance = new char[roomCount];
+        Arrays.fill(distance, UNREACHABLE);
+        int[] queue = new int[roomCount];
+        int head = 0;
+        int tail = 0;
+        int[] steps = new int[roomCount];
+        distance[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int room = queue[head++];
+            int next = steps[room] + 1;
+            char stored = (char) Math.min(next, MAX_DISTANCE);
+            if (incoming == null) {
+                for (int d = 0; d < 4; d++) {
+                    int neighbour = exits[room * 4 + d];
+                    if (neighbour != NO_ROOM && distance[neighbour] == UNREACHABLE) {
+                        distance[neighbour] = stored;
+                        steps[neighbour] = next;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            } else {
+                for (int e = incomingStart[room]; e < incomingStart[room + 1]; e++) {
+                    int neighbour = incoming[e];
+                    if (distance[neighbour] == UNREACHABLE) {
+                        distance[neighbour] = stored;
+                        steps[neighbour] = next;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+
+    // Labels the connected parts of the map, following exits in either direction
+    private int[] findComponents(int[] incomingStart, int[] incoming) {
+        int[] labels = new int[roomCount];
+        Arrays.fill(labels, NO_ROOM);
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        int next = 0;
+        for (int start = 0; start < labels.length; start++) {
+            if (labels[start] != NO_ROOM) {
+                continue;
+            }
+            labels[start] = next;
+            stack.push(start);
+            while (!stack.isEmpty()) {
+                int room = stack.pop();
+                for (int d = 0; d < 4; d++) {
+                    int neighbour = exits[room * 4 + d];
+                    if (neighbour != NO_ROOM && labels[neighbour] == NO_ROOM) {
+                        labels[neighbour] = next;
+                        stack.push(neighbour);
+                    }
+                }
+                for (int e = incomingStart[room]; e < incomingStart[room + 1]; e++) {
+                    if (labels[incoming[e]] == NO_ROOM) {
+                        labels[incoming[e]] = next;
+                        stack.push(incoming[e]);
+                    }
+                }
+            }
+            next++;
+        }
+        return labels;
+    }
+
+    private static String fold(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Scratch space for one route search. Arrays are sized for the whole map once and
+    // "cleared" by bumping a stamp, so a search only touches the rooms it visits.
+    private class Search {
+        private final int[] stamp; // Rooms whose cost and parent belong to the current search
+        private final int[] cost;
+        private final int[] parent;
+        private final boolean[] closed;
+        // Open rooms as a binary heap, smallest estimated total first. Ties go to the room
+        // furthest from the start, which keeps open grids from being explored row by row.
+        private long[] heapKeys = new long[64]; // (estimated total << 32) | (Integer.MAX_VALUE - cost)
+        private int[] heapRooms = new int[64];
+        private int heapSize;
+        private int currentStamp;
+
+        Search(int roomCount) {
+            stamp = new int[roomCount];
+            cost = new int[roomCount];
+            parent = new int[roomCount];
+            closed = new boolean[roomCount];
+        }
+
+        int[] run(int from, int target, int limit) {
+            currentStamp++;
+            heapSize = 0;
+            touch(from, 0, NO_ROOM);
+            push(estimate(from, target), 0, from);
+            while (heapSize > 0) {
+                int room = pop();
+                if (closed[room]) {
+                    continue;
+                }
+                closed[room] = true;
+                if (room == target) {
+                    return path(target);
+                }
+                int next = cost[room] + 1;
+                for (int d = 0; d < 4; d++) {
+                    int neighbour = exits[room * 4 + d];
+                    if (neighbour == NO_ROOM) {
+                        continue;
+                    }
+                    boolean seen = stamp[neighbour] == currentStamp;
+                    if (seen && (closed[neighbour] || cost[neighbour] <= next)) {
+                        continue;
+                    }
+                    int total = next + estimate(neighbour, target);
+                    if (total >= limit) {
+                        continue; // Cannot beat a route already found
+                    }
+                    touch(neighbour, next, room);
+                    push(total, next, neighbour);
+                }
+            }
+            return null;
+        }
+
+        private void touch(int room, int roomCost, int roomParent) {
+            stamp[room] = currentStamp;
+            cost[room] = roomCost;
+            parent[room] = roomParent;
+            closed[room] = false;
+        }
+
+        private int[] path(int target) {
+            int[] route = new int[cost[target]];
+            for (int room = target, i = route.length - 1; i >= 0; room = parent[room], i--) {
+                route[i] = room;
+            }
+            return route;
+        }
+
+        private void push(int total, int roomCost, int room) {
+            if (heapSize == heapKeys.length) {
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+                heapRooms = Arrays.copyOf(heapRooms, heapSize * 2);
+            }
+            long key = (long) total << 32 | (Integer.MAX_VALUE - roomCost);
+            int i = heapSize++;
+            while (i > 0 && heapKeys[(i - 1) / 2] > key) {
+                heapKeys[i] = heapKeys[(i - 1) / 2];
+                heapRooms[i] = heapRooms[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            heapKeys[i] = key;
+            heapRooms[i] = room;
+        }
+
+        private int pop() {
+            int top = heapRooms[0];
+            heapSize--;
+            long lastKey = heapKeys[heapSize];
+            int lastRoom = heapRooms[heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (heapKeys[child] >= lastKey) {
+                    break;
+                }
+                heapKeys[i] = heapKeys[child];
+                heapRooms[i] = heapRooms[child];
+                i = child;
+            }
+            heapKeys[i] = lastKey;
+            heapRooms[i] = lastRoom;
+            return top;
+        }
+    }
+}
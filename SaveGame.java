@@ -0,0 +1,303 @@
+/*
+ * The SaveGame class saves a game session to a compact binary form and restores it.
+ * Only what differs from the pristine world is stored: the player (room, health,
+ * inventory, equipped item, completed puzzles, defeated monsters), the session's
+ * random number state, and the rooms whose state changed (visited, items, solved
+ * puzzle, puzzle attempts, monster health or defeat). Untouched rooms cost nothing,
+ * so a save of a million-room world is as small as one of the default map.
+ *
+ * Serializing happens on the game thread and produces a byte[] that no longer
+ * refers to the session, so it can be written to disk on any other thread.
+ * Files are written to a temporary file first and renamed into place, so a crash
+ * while saving never leaves a half-written save behind.
+ *
+ * Layout (all numbers big-endian):
+ *   header    magic, format version, room count and fingerprint of the world
+ *   strings   count, then UTF-8 strings (everything else refers to them by index)
+ *   items     count, then [name, description, attackPoints, healPoints]
+ *   player    room ID, health, equipped item (item index or NONE), random state,
+ *             inventory (count, item indexes), completed puzzles, defeated monsters
+ *   rooms     count, then [room ID, flags, then the fields the flags call for]
+ * */
+
+package model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SaveGame {
+    public static final int MAGIC = 0x414C5356; // "ALSV"
+    public static final int VERSION = 2;
+    private static final int NONE = -1;
+
+    // Room record flags
+    private static final int VISITED = 1;
+    private static final int ITEMS = 2; // Item list follows
+    private static final int PUZZLE_SOLVED = 4;
+    private static final int MONSTER_GONE = 8;
+    private static final int MONSTER_HEALTH = 16; // Monster health follows
+    private static final int PUZZLE_ATTEMPTS = 32; // Attempt count follows
+
+    private final Player player;
+    private final long randomState;
+
+    private SaveGame(Player player, long randomState) {
+        this.player = player;
+        this.randomState = randomState;
+    }
+
+    // Method to get the restored player, in a new session of the world
+    public Player getPlayer() {
+        return player;
+    }
+
+    // Method to get the saved state of the session's GameRandom
+    public long getRandomState() {
+        return randomState;
+    }
+
+    // Method to serialize a player's session; call it on the game thread
+    public static byte[] write(Player player, long randomState) {
+        GameMap map = player.getMap();
+        GameMap world = map.getWorld();
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<Item, Integer> items = new IdentityHashMap<>();
+        List<Item> itemList = new ArrayList<>();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            out.writeInt(intern(strings, player.getCurrentRoom().getRoomID()));
+            out.writeInt(player.getHealth());
+            out.writeInt(player.getEquippedItem() != null ? itemIndex(items, itemList, player.getEquippedItem()) : NONE);
+            out.writeLong(randomState);
+            writeItems(out, player.getInventory(), items, itemList);
+            writeStrings(out, player.getCompletedPuzzles(), strings);
+            writeStrings(out, player.getDefeatedMonsters(), strings);
+
+            List<Room> changed = new ArrayList<>();
+            for (Room room : map.getSessionRooms().values()) {
+                if (flags(room, world.getRoom(room.getRoomID())) != 0) {
+                    changed.add(room);
+                }
+            }
+            out.writeInt(changed.size());
+            for (Room room : changed) {
+                Room template = world.getRoom(room.getRoomID());
+                int flags = flags(room, template);
+                out.writeInt(intern(strings, room.getRoomID()));
+                out.writeByte(flags);
+                if ((flags & ITEMS) != 0) {
+                    writeItems(out, room.getItems(), items, itemList);
+                }
+                if ((flags & MONSTER_HEALTH) != 0) {
+                    out.writeInt(room.getMonster().getHealth());
+                }
+                if ((flags & PUZZLE_ATTEMPTS) != 0) {
+                    out.writeInt(room.getPuzzleAttempts());
+                }
+            }
+        } catch (IOException | InvalidRoomException e) {
+            throw new IllegalStateException("Could not serialize the game", e); // In-memory stream; cannot happen
+        }
+
+        ByteArrayOutputStream save = new ByteArrayOutputStream(body.size() + 256);
+        try (DataOutputStream out = new DataOutputStream(save)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(world.getRoomCount());
+            out.writeLong(world.getFingerprint());
+            // Item strings are interned last, so the table is complete before it is written
+            for (Item item : itemList) {
+                intern(strings, item.getName());
+                intern(strings, item.getDescription());
+            }
+            out.writeInt(strings.size());
+            for (String value : strings.keySet()) {
+                out.writeUTF(value);
+            }
+            out.writeInt(itemList.size());
+            for (Item item : itemList) {
+                out.writeInt(strings.get(item.getName()));
+                out.writeInt(strings.get(item.getDescription()));
+                out.writeInt(item.getAttackPoints());
+                out.writeInt(item.getHealPoints());
+            }
+            body.writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize the game", e);
+        }
+        return save.toByteArray();
+    }
+
+    // Method to restore a saved game into a new session of the given world
+    public static SaveGame read(byte[] data, GameMap world) throws IOException, InvalidRoomException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a saved game (or saved by another version).");
+            }
+            if (in.readInt() != world.getWorld().getRoomCount() || in.readLong() != world.getFingerprint()) {
+                throw new IOException("This game was saved in a different world.");
+            }
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF();
+            }
+            Item[] items = new Item[in.readInt()];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = catalogItem(world, new Item(strings[in.readInt()], strings[in.readInt()], in.readInt(), in.readInt()));
+            }
+
+            GameMap map = world.getWorld().newSession();
+            Player player = new Player(map);
+            Room currentRoom = map.getRoom(strings[in.readInt()]);
+            int health = in.readInt();
+            int equipped = in.readInt();
+            long randomState = in.readLong();
+            readItems(in, items, player.getInventory());
+            readStrings(in, strings, player.getCompletedPuzzles());
+            readStrings(in, strings, player.getDefeatedMonsters());
+
+            int roomCount = in.readInt();
+            for (int i = 0; i < roomCount; i++) {
+                Room room = map.getRoom(strings[in.readInt()]);
+                int flags = in.readByte();
+                room.setVisited((flags & VISITED) != 0);
+                if ((flags & ITEMS) != 0) {
+                    room.removeAllItems();
+                    readItems(in, items, room.getItems());
+                }
+                if ((flags & PUZZLE_SOLVED) != 0) {
+                    room.addPuzzle(null);
+                }
+                if ((flags & MONSTER_GONE) != 0) {
+                    room.removeMonster();
+                }
+                if ((flags & MONSTER_HEALTH) != 0) {
+                    room.getMonster().setHealth(in.readInt());
+                }
+                if ((flags & PUZZLE_ATTEMPTS) != 0) {
+                    room.setPuzzleAttempts(in.readInt());
+                }
+            }
+            player.restoreState(currentRoom, health, equipped != NONE ? items[equipped] : null);
+            return new SaveGame(player, randomState);
+        } catch (ArrayIndexOutOfBoundsException | NullPointerException e) {
+            throw new IOException("The saved game is damaged.", e);
+        }
+    }
+
+    // Method to write a serialized game to a file, replacing it atomically
+    public static void writeFile(Path path, byte[] data) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Method to read and restore a saved game file
+    public static SaveGame readFile(Path path, GameMap world) throws IOException, InvalidRoomException {
+        return read(Files.readAllBytes(path), world);
+    }
+
+    // Works out which parts of a session room differ from its template
+    private static int flags(Room room, Room template) {
+        int flags = 0;
+        if (!sameItems(room.getItems(), template.getItems())) {
+            flags |= ITEMS;
+        }
+        if (room.getPuzzle() == null && template.getPuzzle() != null) {
+            flags |= PUZZLE_SOLVED;
+        }
+        if (room.getPuzzleAttempts() != template.getPuzzleAttempts()) {
+            flags |= PUZZLE_ATTEMPTS;
+        }
+        if (room.getMonster() == null && template.getMonster() != null) {
+            flags |= MONSTER_GONE;
+        } else if (room.getMonster() != null && room.getMonster().getHealth() != template.getMonster().getHealth()) {
+            flags |= MONSTER_HEALTH;
+        }
+        if (flags == 0 && room.isVisited() == template.isVisited()) {
+            return 0; // Only looked at, not changed
+        }
+        return flags | (room.isVisited() ? VISITED : 0);
+    }
+
+    // Uses the world's own catalog item when it matches, so untouched rooms stay unchanged after a load
+    private static Item catalogItem(GameMap world, Item item) {
+        Item catalog = world.getItemCatalog().get(item.getName());
+        if (catalog != null && catalog.getDescription().equals(item.getDescription())
+                && catalog.getAttackPoints() == item.getAttackPoints() && catalog.getHealPoints() == item.getHealPoints()) {
+            return catalog;
+        }
+        return item;
+    }
+
+    private static boolean sameItems(ItemBag items, ItemBag template) {
+        if (items.size() != template.size()) {
+            return false;
+        }
+        Iterator<Item> other = template.iterator();
+        for (Item item : items) {
+            if (item != other.next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeItems(DataOutputStream out, ItemBag bag, Map<Item, Integer> items, List<Item> itemList)
+            throws IOException {
+        out.writeInt(bag.size());
+        for (Item item : bag) {
+            out.writeInt(itemIndex(items, itemList, item));
+        }
+    }
+
+    private static void readItems(DataInputStream in, Item[] items, ItemBag bag) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            bag.add(items[in.readInt()]);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values, Map<String, Integer> strings)
+            throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeInt(intern(strings, value));
+        }
+    }
+
+    private static void readStrings(DataInputStream in, String[] strings, List<String> values) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            values.add(strings[in.readInt()]);
+        }
+    }
+
+    private static int itemIndex(Map<Item, Integer> items, List<Item> itemList, Item item) {
+        Integer index = items.get(item);
+        if (index == null) {
+            index = itemList.size();
+            items.put(item, index);
+            itemList.add(item);
+        }
+        return index;
+    }
+
+    private static int intern(Map<String, Integer> strings, String value) {
+        Integer index = strings.putIfAbsent(value, strings.size());
+        return index != null ? index : strings.size() - 1;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * The StreamIO class is a GameIO over a pair of byte streams, used for the console
+ * and for socket sessions. Lines longer than MAX_LINE_LENGTH are cut off, so a
+ * client that never sends a line break cannot make a session grow without bound.
+ * I/O failures are rethrown as UncheckedIOException.
+ * */
+
+package view;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+public class StreamIO implements GameIO {
+    public static final int MAX_LINE_LENGTH = 1024;
+    private static final int BUFFER_SIZE = 1024;
+
+    private final Reader reader;
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder();
+
+    public StreamIO(InputStream in, OutputStream out, Charset charset) {
+        this.reader = new BufferedReader(new InputStreamReader(in, charset), BUFFER_SIZE);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+    }
+
+    @Override
+    public String readLine() {
+        try {
+            line.setLength(0);
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == '\n') {
+                    return stripCarriageReturn();
+                }
+                if (line.length() < MAX_LINE_LENGTH) {
+                    line.append((char) c);
+                }
+            }
+            return line.length() > 0 ? stripCarriageReturn() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isInputReady() {
+        try {
+            return reader.ready();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String stripCarriageReturn() {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The TextStore class holds a world's room names and descriptions in a compact form.
+ * Descriptions are the bulk of a world's memory but are only read when they are
+ * shown, so instead of one String per room the store keeps:
+ *   - one entry per distinct text: adding a text that is already stored returns
+ *     the existing entry's ID (found through a hash table of 8 bytes per entry);
+ *   - entries in blocks of ENTRIES_PER_BLOCK, each block Deflate-compressed as a
+ *     whole once it is full, so similar texts compress against each other;
+ *   - a cache of CACHE_BLOCKS decoded blocks (each block has one slot, chosen by its
+ *     index), so the descriptions being shown right now (the current room and its
+ *     neighbours, which sit in nearby blocks) cost one lookup.
+ * Objects store an int ID and decode their text in their getters, so callers see
+ * plain Strings.
+ *
+ * Every WorldGraph has its own store, so the text goes away with the world. Adding
+ * is synchronized (catalogs and rooms load in parallel). A sealed block never
+ * changes, so reading one takes no lock: blocks are published through a volatile
+ * count, and the cache slots are atomic references to immutable decoded blocks.
+ * Two threads that miss on the same block both decode it, and the last one stays
+ * cached; both get the same texts. Only the block still being filled (at most
+ * ENTRIES_PER_BLOCK - 1 texts, all added while loading) is read under the lock.
+ *
+ * Block layout (before compression): for each entry, its UTF-8 length (int), then
+ * the UTF-8 bytes.
+ * */
+
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class TextStore {
+    public static final int NONE = -1; // ID of a null text
+    public static final int ENTRIES_PER_BLOCK = 32;
+    public static final int CACHE_BLOCKS = 256; // A power of two
+
+    // Inflaters are not thread-safe; each reading thread keeps one for every store
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    // A decoded block, as kept in the cache
+    private static final class DecodedBlock {
+        final int block;
+        final String[] entries;
+
+        DecodedBlock(int block, String[] entries) {
+            this.block = block;
+            this.entries = entries;
+        }
+    }
+
+    private volatile byte[][] blocks = new byte[16][]; // Compressed, full blocks (never changed once sealed)
+    private volatile int[] blockSizes = new int[16]; // Uncompressed size of each block
+    private volatile int blockCount; // Written after the block itself, so readers see it whole
+    private final String[] openBlock = new String[ENTRIES_PER_BLOCK]; // Entries of the block being filled (guarded by this)
+    private int openCount;
+    private long compressedBytes;
+    private long textChars; // Length of every distinct entry
+
+    // Open-addressing hash table of the entries: each slot holds the text's hash in the high
+    // 32 bits and its entry ID + 1 in the low 32 bits (0 = empty slot); guarded by this
+    private long[] slots = new long[64];
+
+    private final AtomicReferenceArray<DecodedBlock> cache = new AtomicReferenceArray<>(CACHE_BLOCKS);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED); // Guarded by this
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    // Method to store a text and get its ID; storing the same text again returns the same ID
+    public synchronized int add(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        int hash = hash(text);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int id = (int) slots[slot] - 1;
+            if ((int) (slots[slot] >>> 32) == hash && text.equals(get(id))) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = blockCount * ENTRIES_PER_BLOCK + openCount;
+        openBlock[openCount++] = text;
+        textChars += text.length();
+        slots[slot] = ((long) hash << 32) | (id + 1);
+        if (size() * 4L > slots.length * 3L) {
+            growHashTable();
+        }
+        if (openCount == ENTRIES_PER_BLOCK) {
+            sealOpenBlock();
+        }
+        return id;
+    }
+
+    // Method to get the text stored under an ID (null for NONE)
+    public String get(int id) {
+        if (id == NONE) {
+            return null;
+        }
+        int block = id / ENTRIES_PER_BLOCK;
+        if (block >= blockCount) {
+            return getOpen(id);
+        }
+        int slot = block & (CACHE_BLOCKS - 1);
+        DecodedBlock decoded = cache.get(slot);
+        if (decoded != null && decoded.block == block) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+            decoded = new DecodedBlock(block, decode(block));
+            cache.set(slot, decoded);
+        }
+        return decoded.entries[id % ENTRIES_PER_BLOCK];
+    }
+
+    // Reads an entry of the block being filled; it may have been sealed since get looked
+    private synchronized String getOpen(int id) {
+        int block = id / ENTRIES_PER_BLOCK;
+        return block == blockCount ? openBlock[id % ENTRIES_PER_BLOCK] : get(id);
+    }
+
+    // Method to get the number of distinct texts stored
+    public synchronized int size() {
+        return blockCount * ENTRIES_PER_BLOCK + openCount;
+    }
+
+    // Method to get the number of compressed bytes held for the full blocks
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    // Method to get the total length (in chars) of the distinct texts, before compression
+    public synchronized long getTextChars() {
+        return textChars;
+    }
+
+    // Methods to get how often a text was found in the decoded block cache
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    // Compresses the full open block and starts a new one
+    private void sealOpenBlock() {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(ENTRIES_PER_BLOCK * 128);
+        byte[] length = new byte[4];
+        for (String text : openBlock) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer.wrap(length).putInt(bytes.length);
+            raw.write(length, 0, 4);
+            raw.write(bytes, 0, bytes.length);
+        }
+        byte[] input = raw.toByteArray();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] output = new byte[input.length + 64];
+        int compressed = 0;
+        while (!deflater.finished()) {
+            if (compressed == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            compressed += deflater.deflate(output, compressed, output.length - compressed);
+        }
+
+        int block = blockCount;
+        byte[][] newBlocks = blocks;
+        int[] newSizes = blockSizes;
+        if (block == newBlocks.length) {
+            newBlocks = Arrays.copyOf(newBlocks, block * 2);
+            newSizes = Arrays.copyOf(newSizes, block * 2);
+        }
+        newBlocks[block] = Arrays.copyOf(output, compressed);
+        newSizes[block] = input.length;
+        blocks = newBlocks;
+        blockSizes = newSizes;
+        cache.set(block & (CACHE_BLOCKS - 1), new DecodedBlock(block, openBlock.clone())); // Likely read again soon
+        blockCount = block + 1; // Publishes the block
+        compressedBytes += compressed;
+        Arrays.fill(openBlock, null);
+        openCount = 0;
+    }
+
+    // Inflates a full block back into its texts
+    private String[] decode(int block) {
+        byte[] raw = new byte[blockSizes[block]];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(blocks[block]);
+        try {
+            int read = 0;
+            while (read < raw.length) {
+                int count = inflater.inflate(raw, read, raw.length - read);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Text block " + block + " is truncated");
+                }
+                read += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Text block " + block + " is damaged", e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        String[] entries = new String[ENTRIES_PER_BLOCK];
+        for (int i = 0; i < entries.length; i++) {
+            int length = buffer.getInt();
+            entries[i] = new String(raw, buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        return entries;
+    }
+
+    private void growHashTable() {
+        long[] oldSlots = slots;
+        slots = new long[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (long entry : oldSlots) {
+            if (entry != 0) {
+                int slot = (int) (entry >>> 32) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry;
+            }
+        }
+    }
+
+    // Well-mixed hash of a text; String.hashCode clusters too much for a linear-probing table
+    private static int hash(String text) {
+        return (int) GameRandom.mix(text.hashCode());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The TildeReader class is a shared tokenizer for the tilde-delimited game data
+ * files (Map.txt, Item.txt, Puzzle.txt and Monsters.txt). The file is
+ * memory-mapped through NIO and scanned one line at a time; fields are read
+ * straight out of the mapped bytes, so the only objects created per line are the
+ * Strings that the game actually keeps. Numbers and booleans are parsed in place.
+ *
+ * A mapping holds at most 2 GB, so the file is mapped in windows of WINDOW_SIZE
+ * bytes. When a line runs past the end of the window, the next window is mapped
+ * starting at that line, so every line is always whole in the current window (a
+ * line longer than a window gets a larger one). Files of any size can be read.
+ *
+ * The delimiters '~', ',' and the line breaks are single bytes in UTF-8 and can
+ * never appear inside a multi-byte character, so splitting on bytes is safe.
+ * */
+
+package model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TildeReader {
+    public static final byte FIELD_SEPARATOR = '~';
+    public static final byte LIST_SEPARATOR = ',';
+    public static final int WINDOW_SIZE = 1 << 28; // 256 MB
+
+    private final Path path;
+    private final long fileSize;
+    private final int windowSize;
+    private MappedByteBuffer buffer; // The current window; all offsets below are relative to it
+    private long windowStart; // File offset of the window's first byte
+    private int limit; // Bytes in the window
+    private byte[] scratch = new byte[256]; // Reused when turning field bytes into Strings
+    private int lineStart;
+    private int lineEnd;
+    private int nextLineStart;
+    private int position;
+    private int lineNumber;
+
+    public TildeReader(String fileName) throws IOException {
+        this(fileName, WINDOW_SIZE);
+    }
+
+    // Constructor with a given window size of at least 3 bytes (small windows are only useful for testing)
+    TildeReader(String fileName, int windowSize) throws IOException {
+        this.path = Path.of(fileName);
+        this.windowSize = windowSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+        }
+        map(0, windowSize);
+        skipByteOrderMark();
+    }
+
+    // Method to advance to the next line; returns false at the end of the file
+    public boolean nextLine() throws IOException {
+        if (nextLineStart >= limit && windowStart + limit >= fileSize) {
+            return false;
+        }
+        lineStart = nextLineStart;
+        int end = lineStart;
+        while (true) {
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (end < limit || windowStart + limit >= fileSize) {
+                break;
+            }
+            // The line runs past the window: map the next one from the start of the line,
+            // twice as large if the line alone fills the whole window
+            int scanned = end - lineStart;
+            if (lineStart == 0 && limit == Integer.MAX_VALUE) {
+                throw new IOException("Line " + (lineNumber + 1) + " of " + path + " is longer than 2 GB");
+            }
+            map(windowStart + lineStart, lineStart == 0 ? Math.min(limit * 2L, Integer.MAX_VALUE) : windowSize);
+            lineStart = 0;
+            end = scanned;
+        }
+        nextLineStart = end + 1;
+        if (end > lineStart && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        lineEnd = end;
+        position = lineStart;
+        lineNumber++;
+        return true;
+    }
+
+    // Method to get the 1-based number of the current line
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    // Method to count the '~' separated fields of the current line.
+    // Trailing empty fields are not counted, matching String.split("~").
+    public int fieldCount() {
+        return countSeparated(lineStart, lineEnd, FIELD_SEPARATOR);
+    }
+
+    // Method to count the ',' separated entries of the next field without consuming it
+    public int listLength() {
+        int end = position;
+        while (end < lineEnd && buffer.get(end) != FIELD_SEPARATOR) {
+            end++;
+        }
+        return countSeparated(position, end, LIST_SEPARATOR);
+    }
+
+    // Method to get the next '~' separated field without consuming it, used for error messages
+    public String peekField() {
+        int end = position;
+        while (end < lineEnd && buffer.get(end) != FIELD_SEPARATOR) {
+            end++;
+        }
+        return decode(position, end);
+    }
+
+    // Method to read the next '~' separated field as a String
+    public String nextString() {
+        int start = position;
+        int end = fieldEnd();
+        return decode(start, end);
+    }
+
+    // Method to read the ',' separated entries of the next field into a reused array.
+    // Entries beyond the length of the array are skipped; returns the number stored.
+    public int nextList(String[] entries) {
+        int count = 0;
+        while (count < entries.length && position < lineEnd && buffer.get(position) != FIELD_SEPARATOR) {
+            int start = position;
+            int end = start;
+            while (end < lineEnd && buffer.get(end) != LIST_SEPARATOR && buffer.get(end) != FIELD_SEPARATOR) {
+                end++;
+            }
+            entries[count++] = decode(start, end);
+            position = end < lineEnd && buffer.get(end) == LIST_SEPARATOR ? end + 1 : end;
+        }
+        fieldEnd(); // Skip anything left in the field, including its separator
+        return count;
+    }
+
+    // Method to read the next '~' separated field as an int without creating a String
+    public int nextInt() {
+        int start = position;
+        int end = fieldEnd();
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 10) {
+            throw new NumberFormatException("For input string: \"" + decode(start, end) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + decode(start, end) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + decode(start, end) + "\"");
+        }
+        return (int) value;
+    }
+
+    // Method to read the next field as a boolean, with the same rules as Boolean.parseBoolean
+    public boolean nextBoolean() {
+        int start = position;
+        int end = fieldEnd();
+        if (end - start != 4) {
+            return false;
+        }
+        return (buffer.get(start) | 0x20) == 't' && (buffer.get(start + 1) | 0x20) == 'r'
+                && (buffer.get(start + 2) | 0x20) == 'u' && (buffer.get(start + 3) | 0x20) == 'e';
+    }
+
+    // Method to skip the next '~' separated field
+    public void skipField() {
+        fieldEnd();
+    }
+
+    // Method to get the whole current line, used for error messages
+    public String currentLine() {
+        return decode(lineStart, lineEnd);
+    }
+
+    // Finds the end of the field at the current position and moves past its separator
+    private int fieldEnd() {
+        int end = position;
+        while (end < lineEnd && buffer.get(end) != FIELD_SEPARATOR) {
+            end++;
+        }
+        position = end < lineEnd ? end + 1 : lineEnd;
+        return end;
+    }
+
+    private int countSeparated(int start, int end, byte separator) {
+        while (end > start && buffer.get(end - 1) == separator) {
+            end--;
+        }
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == separator) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Maps size bytes of the file (fewer at its end) from a file offset as the current window
+    private void map(long start, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size, fileSize - start));
+        }
+        windowStart = start;
+        limit = buffer.limit();
+    }
+
+    private void skipByteOrderMark() {
+        if (limit >= 3 && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB
+                && (buffer.get(2) & 0xFF) == 0xBF) {
+            nextLineStart = 3;
+        }
+    }
+}
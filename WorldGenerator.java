@@ -0,0 +1,502 @@
+/*
+ * The WorldGenerator class writes procedurally generated worlds of any size in the
+ * game's own tilde format: Map.txt, Item.txt, Puzzle.txt and Monsters.txt, ready to
+ * be loaded by GameMap (or compiled with --compile-world). Rooms are streamed to
+ * Map.txt one grid row at a time, so generating tens of millions of rooms needs
+ * memory for a single row only, never for the world.
+ *
+ * Rooms are numbered 1..roomCount row by row on a grid about sqrt(roomCount) wide,
+ * and every exit is reciprocal (if A leads east to B, B leads west to A). Layouts:
+ *   - GRID: every room is linked to all of its grid neighbours;
+ *   - MAZE: a random planar maze built with Eller's algorithm, which only keeps the
+ *     current row's sets, so every room is reachable from every other one; with a
+ *     loop chance above 0, some extra links between already-connected rooms turn
+ *     the maze's single paths into loops.
+ * Each room gets an item, a monster and a puzzle with the configured densities,
+ * picked from generated catalogs (of configurable sizes) that are written to the
+ * other three files. Room 1, where every game starts, never gets a random monster
+ * or puzzle. Fixed content can be placed in given rooms (placeItem, placePuzzle,
+ * placeMonster) and fixed catalog entries added (addItem, addPuzzle, addMonster),
+ * which is how the benchmarks set up their fights and riddles.
+ *
+ * The output depends only on the settings and the seed.
+ *
+ * Usage: java generator.WorldGenerator [--rooms N] [--layout grid|maze] [--seed N]
+ *            [--items D] [--monsters D] [--puzzles D] [--loops P]
+ *            [--item-types N] [--monster-types N] [--puzzle-types N] [outputFolder]
+ * Densities and the loop chance are fractions between 0 and 1; the folder defaults
+ * to the current one (which overwrites the shipped world files).
+ * */
+
+package generator;
+
+import model.GameRandom;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WorldGenerator {
+    public enum Layout { GRID, MAZE }
+
+    private static final int WRITE_BUFFER = 1 << 16;
+    private static final String NONE = "0";
+
+    private static final String[] ROOM_ADJECTIVES = {"Gloomy", "Crooked", "Velvet", "Rusted", "Whispering",
+        "Shattered", "Gilded", "Hollow", "Tangled", "Frozen", "Smouldering", "Upside-down", "Painted", "Forgotten",
+        "Ticking", "Sunken"};
+    private static final String[] ROOM_PLACES = {"Parlour", "Hall", "Garden", "Library", "Nursery", "Kitchen",
+        "Gallery", "Cellar", "Tea Room", "Ballroom", "Corridor", "Orchard", "Chapel", "Workshop", "Courtyard",
+        "Observatory"};
+    private static final String[] DESCRIPTION_OPENINGS = {"Dust hangs in the air", "Candles gutter in the draught",
+        "The floor tilts underfoot", "Clocks tick out of step", "Wallpaper peels in long strips",
+        "A cold mist curls along the ground", "Mirrors line every wall", "Roots break through the stones"};
+    private static final String[] DESCRIPTION_MIDDLES = {"and playing cards lie scattered about",
+        "while teacups rattle on their hooks", "as a distant laugh echoes", "beside a door far too small to use",
+        "under a ceiling painted with eyes", "around a table set for no one", "near a chessboard missing its king",
+        "among jars of unlabelled jam"};
+    private static final String[] DESCRIPTION_ENDINGS = {"Alice treads carefully.", "Something watches her pass.",
+        "It smells faintly of burnt sugar.", "Nothing here stays still for long.",
+        "She feels both very large and very small.", "The silence is almost loud."};
+    private static final String[] ITEM_ADJECTIVES = {"Rusty", "Silver", "Cursed", "Glowing", "Cracked", "Jagged",
+        "Sugared", "Ancient"};
+    private static final String[] WEAPONS = {"Blade", "Hobby Horse", "Pepper Grinder", "Croquet Mallet",
+        "Teapot Cannon", "Jacks", "Umbrella", "Clockwork Bomb"};
+    private static final String[] REMEDIES = {"Tonic", "Tart", "Rose", "Mushroom", "Biscuit", "Potion", "Cordial",
+        "Feather"};
+    private static final String[] MONSTER_ADJECTIVES = {"Snarling", "Rabid", "Spectral", "Ruinous", "Bloated",
+        "Slithering", "Mad", "Hungry"};
+    private static final String[] CREATURES = {"Card Guard", "Bolterfly", "Snark", "Doll", "Dormouse", "Walrus",
+        "Gryphon", "Jabberwock"};
+    private static final String[] NUMBER_WORDS = {"zero", "one", "two", "three", "four", "five", "six", "seven",
+        "eight", "nine", "ten", "eleven", "twelve"};
+
+    private final int roomCount;
+    private final Layout layout;
+    private final long seed;
+    private double itemDensity = 0.10;
+    private double monsterDensity = 0.02;
+    private double puzzleDensity = 0.02;
+    private double loopChance = 0.10;
+    private int itemTypes = 64;
+    private int monsterTypes = 32;
+    private int puzzleTypes = 64;
+
+    // Fixed catalog entries (full tilde lines) and fixed room contents, by room number
+    private final List<String> fixedItems = new ArrayList<>();
+    private final List<String> fixedPuzzles = new ArrayList<>();
+    private final List<String> fixedMonsters = new ArrayList<>();
+    private final Map<Long, String> placedItems = new HashMap<>();
+    private final Map<Long, String> placedPuzzles = new HashMap<>();
+    private final Map<Long, String> placedMonsters = new HashMap<>();
+
+    // Catalog names and puzzle IDs that rooms pick from, built by write
+    private String[] itemNames;
+    private String[] monsterNames;
+    private String[] puzzleIDs;
+
+    public WorldGenerator(int roomCount, Layout layout, long seed) {
+        if (roomCount < 1) {
+            throw new IllegalArgumentException("A world needs at least one room");
+        }
+        this.roomCount = roomCount;
+        this.layout = layout;
+        this.seed = seed;
+    }
+
+    // Setters for the chance of a room holding an item, a monster or a puzzle
+    public void setItemDensity(double itemDensity) {
+        this.itemDensity = checkFraction(itemDensity);
+    }
+
+    public void setMonsterDensity(double monsterDensity) {
+        this.monsterDensity = checkFraction(monsterDensity);
+    }
+
+    public void setPuzzleDensity(double puzzleDensity) {
+        this.puzzleDensity = checkFraction(puzzleDensity);
+    }
+
+    // Setter for the chance that a maze gets an extra link between two connected rooms
+    public void setLoopChance(double loopChance) {
+        this.loopChance = checkFraction(loopChance);
+    }
+
+    // Setters for the number of generated catalog entries (fixed entries come on top)
+    public void setItemTypes(int itemTypes) {
+        this.itemTypes = Math.max(itemTypes, 0);
+    }
+
+    public void setMonsterTypes(int monsterTypes) {
+        this.monsterTypes = Math.max(monsterTypes, 0);
+    }
+
+    public void setPuzzleTypes(int puzzleTypes) {
+        this.puzzleTypes = Math.max(puzzleTypes, 0);
+    }
+
+    // Methods to add fixed catalog entries; rooms pick from them as well as the generated ones
+    public void addItem(String name, String description, int attackPoints, int healPoints) {
+        fixedItems.add(name + "~" + description + "~" + attackPoints + "~" + healPoints);
+    }
+
+    public void addPuzzle(String puzzleID, String description, String solution) {
+        fixedPuzzles.add(puzzleID + "~" + description + "~" + solution);
+    }
+
+    public void addMonster(String name, String description, int health, int attackPower, int defense, String itemDrop) {
+        fixedMonsters.add(name + "~" + description + "~" + health + "~" + attackPower + "~" + defense + "~" + itemDrop);
+    }
+
+    // Methods to put a given item, puzzle or monster in a room instead of a random one
+    public void placeItem(long roomID, String itemName) {
+        placedItems.put(roomID, itemName);
+    }
+
+    public void placePuzzle(long roomID, String puzzleID) {
+        placedPuzzles.put(roomID, puzzleID);
+    }
+
+    public void placeMonster(long roomID, String monsterName) {
+        placedMonsters.put(roomID, monsterName);
+    }
+
+    // Method to write the four world files into a folder; returns the number of lines written
+    public long write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        GameRandom catalogRandom = new GameRandom(GameRandom.mix(seed ^ 0x5EED));
+        long lines = writeItems(dir.resolve("Item.txt"), catalogRandom);
+        lines += writePuzzles(dir.resolve("Puzzle.txt"), catalogRandom);
+        lines += writeMonsters(dir.resolve("Monsters.txt"), catalogRandom);
+        return lines + writeMap(dir.resolve("Map.txt"));
+    }
+
+    // Streams Map.txt one row at a time: the row's links are decided, its rooms written,
+    // and only what the next row needs (which rooms lead south, and their maze sets) is kept
+    private long writeMap(Path file) throws IOException {
+        int width = (int) Math.ceil(Math.sqrt(roomCount));
+        int rows = (int) ((roomCount + width - 1L) / width);
+        GameRandom layoutRandom = new GameRandom(seed);
+        GameRandom contentRandom = new GameRandom(GameRandom.mix(seed));
+
+        boolean[] northOpen = new boolean[width];
+        boolean[] eastOpen = new boolean[width];
+        boolean[] southOpen = new boolean[width];
+        MazeRow maze = layout == Layout.MAZE ? new MazeRow(width) : null;
+        StringBuilder line = new StringBuilder(256);
+
+        try (Writer writer = newWriter(file)) {
+            for (int row = 0; row < rows; row++) {
+                int length = rowLength(row, width);
+                int nextLength = row + 1 < rows ? rowLength(row + 1, width) : 0;
+                if (maze != null) {
+                    maze.link(layoutRandom, length, nextLength, loopChance, eastOpen, southOpen);
+                } else {
+                    for (int column = 0; column < length; column++) {
+                        eastOpen[column] = column + 1 < length;
+                        southOpen[column] = column < nextLength;
+                    }
+                }
+
+                long firstID = (long) row * width + 1;
+                for (int column = 0; column < length; column++) {
+                    long id = firstID + column;
+                    line.setLength(0);
+                    line.append(id).append("~false~");
+                    appendRoomText(line, id, contentRandom);
+                    line.append('~').append(pick(placedItems, id, itemNames, itemDensity, contentRandom));
+                    String puzzle = pick(placedPuzzles, id, puzzleIDs, puzzleDensity, contentRandom);
+                    line.append('~').append(id == 1 && !placedPuzzles.containsKey(id) ? NONE : puzzle);
+                    line.append('~');
+                    appendExit(line, northOpen[column], id - width).append(',');
+                    appendExit(line, eastOpen[column], id + 1).append(',');
+                    appendExit(line, southOpen[column], id + width).append(',');
+                    appendExit(line, column > 0 && eastOpen[column - 1], id - 1);
+                    String monster = pick(placedMonsters, id, monsterNames, monsterDensity, contentRandom);
+                    line.append('~').append(id == 1 && !placedMonsters.containsKey(id) ? NONE : monster);
+                    line.append('\n');
+                    writer.append(line);
+                }
+
+                boolean[] swap = northOpen;
+                northOpen = southOpen;
+                southOpen = swap;
+            }
+        }
+        return roomCount;
+    }
+
+    private long writeItems(Path file, GameRandom random) throws IOException {
+        itemNames = new String[fixedItems.size() + itemTypes];
+        try (Writer writer = newWriter(file)) {
+            int count = 0;
+            for (String entry : fixedItems) {
+                itemNames[count++] = entry.substring(0, entry.indexOf('~'));
+                writer.append(entry).append('\n');
+            }
+            for (int i = 0; i < itemTypes; i++) {
+                boolean weapon = i % 2 == 0;
+                String[] nouns = weapon ? WEAPONS : REMEDIES;
+                String name = catalogName(ITEM_ADJECTIVES, nouns, i / 2);
+                int points = 5 + random.nextInt(26);
+                itemNames[count++] = name;
+                writer.append(name).append('~')
+                        .append(weapon ? "A " + name.toLowerCase() + " that hits harder than it looks."
+                                : "A " + name.toLowerCase() + " that restores some of Alice's vitality.")
+                        .append('~').append(String.valueOf(weapon ? points : 0))
+                        .append('~').append(String.valueOf(weapon ? 0 : points)).append('\n');
+            }
+        }
+        return itemNames.length;
+    }
+
+    private long writePuzzles(Path file, GameRandom random) throws IOException {
+        puzzleIDs = new String[fixedPuzzles.size() + puzzleTypes];
+        try (Writer writer = newWriter(file)) {
+            int count = 0;
+            for (String entry : fixedPuzzles) {
+                puzzleIDs[count++] = entry.substring(0, entry.indexOf('~'));
+                writer.append(entry).append('\n');
+            }
+            for (int i = 0; i < puzzleTypes; i++) {
+                String puzzleID = "G" + (i + 1); // Cannot clash with the numbered puzzles of a shipped world
+                int cakes = 2 + random.nextInt(5);
+                int more = 1 + random.nextInt(6);
+                puzzleIDs[count++] = puzzleID;
+                writer.append(puzzleID).append("~The Caterpillar eats ").append(NUMBER_WORDS[cakes])
+                        .append(" cakes, then ").append(NUMBER_WORDS[more])
+                        .append(" more. How many has he eaten?~").append(NUMBER_WORDS[cakes + more]).append('\n');
+            }
+        }
+        return puzzleIDs.length;
+    }
+
+    private long writeMonsters(Path file, GameRandom random) throws IOException {
+        monsterNames = new String[fixedMonsters.size() + monsterTypes];
+        try (Writer writer = newWriter(file)) {
+            int count = 0;
+            for (String entry : fixedMonsters) {
+                monsterNames[count++] = entry.substring(0, entry.indexOf('~'));
+                writer.append(entry).append('\n');
+            }
+            for (int i = 0; i < monsterTypes; i++) {
+                String name = catalogName(MONSTER_ADJECTIVES, CREATURES, i);
+                String drop = itemNames.length > 0 ? itemNames[random.nextInt(itemNames.length)] : NONE;
+                monsterNames[count++] = name;
+                writer.append(name).append("~A ").append(name.toLowerCase()).append(" that blocks the way.~")
+                        .append(String.valueOf(40 + random.nextInt(121))).append('~')
+                        .append(String.valueOf(5 + random.nextInt(21))).append('~')
+                        .append(String.valueOf(random.nextInt(9))).append('~')
+                        .append(drop).append('\n');
+            }
+        }
+        return monsterNames.length;
+    }
+
+    // Appends a room's name (unique, as it ends in the room number) and description
+    private static void appendRoomText(StringBuilder line, long id, GameRandom random) {
+        line.append(ROOM_ADJECTIVES[random.nextInt(ROOM_ADJECTIVES.length)]).append(' ')
+                .append(ROOM_PLACES[random.nextInt(ROOM_PLACES.length)]).append(' ').append(id).append('~')
+                .append(DESCRIPTION_OPENINGS[random.nextInt(DESCRIPTION_OPENINGS.length)]).append(' ')
+                .append(DESCRIPTION_MIDDLES[random.nextInt(DESCRIPTION_MIDDLES.length)]).append(". ")
+                .append(DESCRIPTION_ENDINGS[random.nextInt(DESCRIPTION_ENDINGS.length)]);
+    }
+
+    private static StringBuilder appendExit(StringBuilder line, boolean open, long roomID) {
+        return open ? line.append(roomID) : line.append(NONE);
+    }
+
+    // Picks a room's content: the placed one if any, otherwise a random catalog entry with
+    // the given chance. The random draw is always taken, so placing content in one room
+    // does not change what the others get.
+    private static String pick(Map<Long, String> placed, long id, String[] catalog, double density, GameRandom random) {
+        double roll = random.nextDouble();
+        int choice = random.nextInt(Math.max(catalog.length, 1));
+        String fixed = placed.get(id);
+        if (fixed != null) {
+            return fixed;
+        }
+        return roll < density && catalog.length > 0 ? catalog[choice] : NONE;
+    }
+
+    // Builds the i-th distinct name out of two word lists, numbering the names once the
+    // combinations run out
+    private static String catalogName(String[] adjectives, String[] nouns, int i) {
+        int combinations = adjectives.length * nouns.length;
+        int round = i / combinations;
+        int within = i % combinations;
+        String name = adjectives[within / nouns.length] + " " + nouns[within % nouns.length];
+        return round == 0 ? name : name + " " + (round + 1);
+    }
+
+    private int rowLength(int row, int width) {
+        return (int) Math.min(width, roomCount - (long) row * width);
+    }
+
+    private static Writer newWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                WRITE_BUFFER);
+    }
+
+    private static double checkFraction(double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException("Expected a fraction between 0 and 1: " + value);
+        }
+        return value;
+    }
+
+    // One row of Eller's maze algorithm. Every room of the row belongs to a set of rooms
+    // that are already connected; the row's east links join neighbouring sets, and each
+    // set leads south at least once so nothing is cut off. Set labels are renumbered each
+    // row (carried sets below width, new rooms width + column), so a union-find over
+    // 2 * width labels is all the state there is.
+    private static class MazeRow {
+        private final int width;
+        private final int[] labels; // Set label of each column of the current row
+        private final int[] parent;
+        private final int[] candidates; // Per set root: columns that could lead south so far
+        private final int[] chosen; // Per set root: the column that leads south if no other does
+        private final boolean[] leadsSouth; // Per set root
+        private final int[] renumber;
+
+        MazeRow(int width) {
+            this.width = width;
+            labels = new int[width];
+            parent = new int[width * 2];
+            candidates = new int[width * 2];
+            chosen = new int[width * 2];
+            leadsSouth = new boolean[width * 2];
+            renumber = new int[width * 2];
+            for (int column = 0; column < width; column++) {
+                labels[column] = width + column; // The first row starts with every room on its own
+            }
+        }
+
+        // Decides the row's east and south links; nextLength is 0 for the last row, and
+        // shorter than length when the next row is the partial last one
+        void link(GameRandom random, int length, int nextLength, double loopChance, boolean[] eastOpen,
+                boolean[] southOpen) {
+            for (int label = 0; label < parent.length; label++) {
+                parent[label] = label;
+            }
+
+            for (int column = 0; column + 1 < length; column++) {
+                int a = find(labels[column]);
+                int b = find(labels[column + 1]);
+                boolean open;
+                if (a == b) {
+                    open = random.nextDouble() < loopChance; // Already connected: a link makes a loop
+                } else if (nextLength == 0 || column + 1 >= nextLength) {
+                    open = true; // Last row, or no room below: join now or never
+                } else {
+                    open = random.nextInt(2) == 0;
+                }
+                eastOpen[column] = open;
+                if (open && a != b) {
+                    parent[b] = a;
+                }
+            }
+            eastOpen[length - 1] = false;
+
+            if (nextLength == 0) {
+                Arrays.fill(southOpen, false);
+                return;
+            }
+            for (int column = 0; column < length; column++) {
+                int root = find(labels[column]);
+                candidates[root] = 0;
+                leadsSouth[root] = false;
+            }
+            for (int column = 0; column < length; column++) {
+                int root = find(labels[column]);
+                southOpen[column] = false;
+                if (column >= nextLength) {
+                    continue;
+                }
+                if (random.nextInt(2) == 0) {
+                    southOpen[column] = true;
+                    leadsSouth[root] = true;
+                }
+                if (random.nextInt(++candidates[root]) == 0) {
+                    chosen[root] = column; // A uniform pick among the set's columns
+                }
+            }
+            for (int column = 0; column < length; column++) {
+                int root = find(labels[column]);
+                if (!leadsSouth[root]) {
+                    southOpen[chosen[root]] = true;
+                    leadsSouth[root] = true;
+                }
+            }
+
+            // The next row's labels: rooms below a south link carry their set, the others start new ones
+            Arrays.fill(renumber, -1);
+            int nextLabel = 0;
+            for (int column = 0; column < nextLength; column++) {
+                if (southOpen[column]) {
+                    int root = find(labels[column]);
+                    if (renumber[root] < 0) {
+                        renumber[root] = nextLabel++;
+                    }
+                    labels[column] = renumber[root];
+                } else {
+                    labels[column] = width + column;
+                }
+            }
+        }
+
+        private int find(int label) {
+            while (parent[label] != label) {
+                parent[label] = parent[parent[label]];
+                label = parent[label];
+            }
+            return label;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rooms = Integer.parseInt(option(args, "--rooms", "1000"));
+        Layout layout = Layout.valueOf(option(args, "--layout", "grid").toUpperCase());
+        long seed = Long.parseLong(option(args, "--seed", "42"));
+        WorldGenerator generator = new WorldGenerator(rooms, layout, seed);
+        generator.setItemDensity(Double.parseDouble(option(args, "--items", "0.1")));
+        generator.setMonsterDensity(Double.parseDouble(option(args, "--monsters", "0.02")));
+        generator.setPuzzleDensity(Double.parseDouble(option(args, "--puzzles", "0.02")));
+        generator.setLoopChance(Double.parseDouble(option(args, "--loops", "0.1")));
+        generator.setItemTypes(Integer.parseInt(option(args, "--item-types", "64")));
+        generator.setMonsterTypes(Integer.parseInt(option(args, "--monster-types", "32")));
+        generator.setPuzzleTypes(Integer.parseInt(option(args, "--puzzle-types", "64")));
+
+        // The output folder is the one argument that is not an option or an option's value
+        Path dir = Path.of(".");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                i++;
+            } else {
+                dir = Path.of(args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        long lines = generator.write(dir);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long bytes = Files.size(dir.resolve("Map.txt"));
+        System.out.printf("%,d rooms (%s, seed %d) in %s: %,d lines, Map.txt %,d MB, %.2f s (%,.0f lines/s)%n",
+                rooms, layout.name().toLowerCase(), seed, dir.toAbsolutePath().normalize(), lines, bytes >> 20,
+                seconds, lines / seconds);
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        int index = Arrays.asList(args).indexOf(name);
+        return index >= 0 && index + 1 < args.length ? args[index + 1] : defaultValue;
+    }
+}
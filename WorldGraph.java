@@ -0,0 +1,318 @@
+/*
+ * The WorldGraph class is the compact, struct-of-arrays form of a world's rooms.
+ * Every room is a dense int index, and each of its properties lives in an array
+ * (or bit set) indexed by it instead of in a Room object of its own:
+ *   - room IDs in a String array, found again through an open-addressing int table;
+ *   - names and descriptions as IDs in the graph's own TextStore, which is dropped
+ *     together with the world;
+ *   - exits in one int array, 4 per room in north, east, south, west order, holding
+ *     the neighbouring room's index, WALL for "0", or a negative code for an exit to
+ *     a room that does not exist (the ID is kept, so moving there still reports it);
+ *   - visited, has-items, has-puzzle and has-monster flags in bit sets;
+ *   - the few rooms that start with items, a puzzle or a monster in sparse maps.
+ * That is around a hundred bytes per room instead of several hundred, and a walk
+ * over the exits reads one flat array.
+ *
+ * Room objects are views over a graph: GameMap hands out Room(graph, index) for
+ * the rooms a session touches, which read the shared properties from here and keep
+ * their own copy of the state a game changes (visited, items, puzzle, monster).
+ * A graph is filled with addRoom and linkExits while a world loads (or with
+ * addLinkedRoom, whose exits are already room indexes, when it comes from a
+ * WorldSnapshot), and only read after that, so every session and thread can share
+ * it without locking.
+ * */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WorldGraph {
+    public static final int NORTH = 0;
+    public static final int EAST = 1;
+    public static final int SOUTH = 2;
+    public static final int WEST = 3;
+    public static final int NO_ROOM = -1; // indexOf result for an unknown room ID
+    public static final int WALL = -1; // Exit value for a "0" exit
+    private static final String WALL_ID = "0";
+    private static final int DANGLING_BASE = -2; // Exit value for the first dangling exit; the next is -3, ...
+
+    private int roomCount;
+    private int linkedCount; // Rooms whose exits have been resolved to indexes
+    private String[] roomIDs;
+    private final TextStore texts = new TextStore(); // Names and descriptions of this world only
+    private int[] nameIDs; // IDs in texts
+    private int[] descriptionIDs; // IDs in texts
+    private int[] exits; // 4 per room: room index, WALL, or DANGLING_BASE - dangling exit number
+    private String[] pendingExits; // Exit IDs of rooms added since the last linkExits, or null
+    private final List<String> danglingExits = new ArrayList<>(); // IDs of exits to missing rooms
+    private int[] indexTable = new int[32]; // Room index + 1 by room ID hash (0 = empty slot)
+    private final BitSet visited = new BitSet();
+    private final BitSet hasItems = new BitSet();
+    private final BitSet hasPuzzle = new BitSet();
+    private final BitSet hasMonster = new BitSet();
+    private final Map<Integer, Item[]> items = new HashMap<>();
+    private final Map<Integer, Puzzle> puzzles = new HashMap<>();
+    private final Map<Integer, Monster> monsters = new HashMap<>();
+
+    // Constructor with room for the given number of rooms (the graph grows past it as needed)
+    public WorldGraph(int expectedRooms) {
+        int capacity = Math.max(expectedRooms, 1);
+        roomIDs = new String[capacity];
+        nameIDs = new int[capacity];
+        descriptionIDs = new int[capacity];
+        exits = new int[capacity * 4];
+    }
+
+    // Method to add a room; its exits are resolved by linkExits once every room is added.
+    // Returns the room's index. When two rooms share an ID, the first one is found by it.
+    public int addRoom(String roomID, String name, boolean isVisited, String description,
+            String northRoomID, String eastRoomID, String southRoomID, String westRoomID) {
+        if (roomCount == roomIDs.length) {
+            grow();
+        }
+        int index = roomCount++;
+        roomIDs[index] = roomID;
+        nameIDs[index] = texts.add(name);
+        descriptionIDs[index] = texts.add(description);
+        visited.set(index, isVisited);
+        if (pendingExits == null) {
+            pendingExits = new String[roomIDs.length * 4];
+        }
+        pendingExits[index * 4 + NORTH] = northRoomID;
+        pendingExits[index * 4 + EAST] = eastRoomID;
+        pendingExits[index * 4 + SOUTH] = southRoomID;
+        pendingExits[index * 4 + WEST] = westRoomID;
+        insertIndex(index);
+        return index;
+    }
+
+    // Method to add a room whose exits are already resolved: each is a room index (the room
+    // may be added later), WALL, or a value from danglingExit. Rooms added with addRoom must
+    // be linked first. Returns the room's index.
+    public int addLinkedRoom(String roomID, String name, boolean isVisited, String description,
+            int north, int east, int south, int west) {
+        if (linkedCount != roomCount) {
+            throw new IllegalStateException("Rooms added with addRoom have not been linked yet");
+        }
+        if (roomCount == roomIDs.length) {
+            grow();
+        }
+        int index = roomCount++;
+        roomIDs[index] = roomID;
+        nameIDs[index] = texts.add(name);
+        descriptionIDs[index] = texts.add(description);
+        visited.set(index, isVisited);
+        exits[index * 4 + NORTH] = north;
+        exits[index * 4 + EAST] = east;
+        exits[index * 4 + SOUTH] = south;
+        exits[index * 4 + WEST] = west;
+        linkedCount = roomCount;
+        insertIndex(index);
+        return index;
+    }
+
+    // Method to get the exit value for an exit to a room that does not exist, for addLinkedRoom
+    public int danglingExit(String roomID) {
+        danglingExits.add(roomID);
+        return DANGLING_BASE - (danglingExits.size() - 1);
+    }
+
+    // Method to turn the exit IDs of the rooms added so far into room indexes
+    public void linkExits() {
+        for (int i = linkedCount * 4; i < roomCount * 4; i++) {
+            exits[i] = resolve(pendingExits[i]);
+        }
+        linkedCount = roomCount;
+        pendingExits = null;
+    }
+
+    // Methods to put a room's starting items, puzzle and monster into the world
+    public void addItem(int index, Item item) {
+        Item[] roomItems = items.get(index);
+        roomItems = roomItems == null ? new Item[] {item} : appendItem(roomItems, item);
+        items.put(index, roomItems);
+        hasItems.set(index);
+    }
+
+    public void setPuzzle(int index, Puzzle puzzle) {
+        if (puzzle != null) {
+            puzzles.put(index, puzzle);
+        } else {
+            puzzles.remove(index);
+        }
+        hasPuzzle.set(index, puzzle != null);
+    }
+
+    public void setMonster(int index, Monster monster) {
+        if (monster != null) {
+            monsters.put(index, monster);
+        } else {
+            monsters.remove(index);
+        }
+        hasMonster.set(index, monster != null);
+    }
+
+    // Method to get the number of rooms
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    // Method to get the store holding this world's names and descriptions (for memory reports)
+    public TextStore getTextStore() {
+        return texts;
+    }
+
+    // Method to find a room's index by its ID, or NO_ROOM
+    public int indexOf(String roomID) {
+        if (roomID == null) {
+            return NO_ROOM;
+        }
+        int mask = indexTable.length - 1;
+        for (int slot = hash(roomID) & mask; indexTable[slot] != 0; slot = (slot + 1) & mask) {
+            int index = indexTable[slot] - 1;
+            if (roomIDs[index].equals(roomID)) {
+                return index;
+            }
+        }
+        return NO_ROOM;
+    }
+
+    // Getters for the shared properties of the room at an index
+    public String getRoomID(int index) {
+        return roomIDs[index];
+    }
+
+    public String getName(int index) {
+        return texts.get(nameIDs[index]);
+    }
+
+    public String getDescription(int index) {
+        return texts.get(descriptionIDs[index]);
+    }
+
+    // Method to get the index of the room an exit leads to, WALL, or a value below WALL
+    // for an exit to a room that does not exist
+    public int getExit(int index, int direction) {
+        if (index >= linkedCount) {
+            String roomID = pendingExits[index * 4 + direction];
+            int exit = WALL_ID.equals(roomID) ? WALL : indexOf(roomID);
+            return exit != NO_ROOM || WALL_ID.equals(roomID) ? exit : DANGLING_BASE;
+        }
+        return exits[index * 4 + direction];
+    }
+
+    // Method to get the ID an exit leads to, as written in the map ("0" for a wall)
+    public String getExitID(int index, int direction) {
+        if (index >= linkedCount) {
+            return pendingExits[index * 4 + direction];
+        }
+        int exit = exits[index * 4 + direction];
+        if (exit >= 0) {
+            return roomIDs[exit];
+        }
+        return exit == WALL ? WALL_ID : danglingExits.get(DANGLING_BASE - exit);
+    }
+
+    // Getters for the state a room starts a game with
+    public boolean isVisited(int index) {
+        return visited.get(index);
+    }
+
+    public boolean hasItems(int index) {
+        return hasItems.get(index);
+    }
+
+    public boolean hasPuzzle(int index) {
+        return hasPuzzle.get(index);
+    }
+
+    public boolean hasMonster(int index) {
+        return hasMonster.get(index);
+    }
+
+    // Method to get a room's starting items (an empty array when it has none)
+    public Item[] getItems(int index) {
+        return hasItems.get(index) ? items.get(index).clone() : new Item[0];
+    }
+
+    public Puzzle getPuzzle(int index) {
+        return hasPuzzle.get(index) ? puzzles.get(index) : null;
+    }
+
+    public Monster getMonster(int index) {
+        return hasMonster.get(index) ? monsters.get(index) : null;
+    }
+
+    // Method to get the whole exit table (4 per room), for traversals such as RoutingTable.
+    // Only linked rooms are included; do not modify it.
+    int[] getExitTable() {
+        return exits;
+    }
+
+    private int resolve(String roomID) {
+        if (WALL_ID.equals(roomID)) {
+            return WALL;
+        }
+        int index = indexOf(roomID);
+        return index != NO_ROOM ? index : danglingExit(roomID);
+    }
+
+    // Makes a room findable by its ID, unless an earlier room already has that ID
+    private void insertIndex(int index) {
+        if ((roomCount + 1) * 2 > indexTable.length) {
+            growIndexTable();
+        }
+        String roomID = roomIDs[index];
+        int mask = indexTable.length - 1;
+        int slot = hash(roomID) & mask;
+        while (indexTable[slot] != 0) {
+            if (roomIDs[indexTable[slot] - 1].equals(roomID)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        indexTable[slot] = index + 1;
+    }
+
+    private void growIndexTable() {
+        int[] old = indexTable;
+        indexTable = new int[old.length * 2];
+        int mask = indexTable.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int slot = hash(roomIDs[entry - 1]) & mask;
+                while (indexTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                indexTable[slot] = entry;
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = roomIDs.length * 2;
+        roomIDs = Arrays.copyOf(roomIDs, capacity);
+        nameIDs = Arrays.copyOf(nameIDs, capacity);
+        descriptionIDs = Arrays.copyOf(descriptionIDs, capacity);
+        exits = Arrays.copyOf(exits, capacity * 4);
+        if (pendingExits != null) {
+            pendingExits = Arrays.copyOf(pendingExits, capacity * 4);
+        }
+    }
+
+    private static Item[] appendItem(Item[] roomItems, Item item) {
+        Item[] grown = Arrays.copyOf(roomItems, roomItems.length + 1);
+        grown[roomItems.length] = item;
+        return grown;
+    }
+
+    // Room IDs are usually consecutive numbers, whose String hashes are consecutive too
+    private static int hash(String roomID) {
+        return (int) GameRandom.mix(roomID.hashCode());
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * The WorldSnapshot class compiles the four world text files into one compact
+ * binary file and loads a GameMap back from it. Loading a snapshot skips all text
+ * parsing: the file is memory-mapped (in windows of WINDOW_SIZE bytes, so it may
+ * be larger than the 2 GB one mapping can hold), the string table is decoded once,
+ * and the fixed-width records point at catalog entries and rooms by index, so
+ * rooms are linked to their exits, items, puzzles and monsters without any name
+ * lookups.
+ *
+ * File layout (all numbers big-endian):
+ *   header     magic, format version, then size + last-modified time of each
+ *              source file (Map, Item, Puzzle, Monsters) used to detect staleness
+ *   strings    count, then (byte length, UTF-8 bytes) per string
+ *   items      count, then [name, description, attackPoints, healPoints]
+ *   puzzles    count, then [puzzleID, description, solution]
+ *   monsters   count, then [name, description, health, attackPower, defense, itemDrop]
+ *   rooms      count, then [roomID, name, description, visited, north, east, south,
+ *              west, item, puzzle, monster]
+ *   missing    count, then [kind, roomID, message] for each item, puzzle or monster
+ *              reference in Map.txt that is not in its catalog
+ * Strings are stored as string table indexes; item, puzzle and monster references
+ * in a room record are record indexes, with NONE meaning the room has no such entry.
+ * An exit is the index of the room it leads to, WALL for "0", or DANGLING_BASE minus
+ * the string index of the ID for an exit to a room that does not exist.
+ * The missing references are kept so that a world loaded from its snapshot reports
+ * the same validation errors as one parsed from the text files.
+ * */
+
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WorldSnapshot {
+    public static final String DEFAULT_FILE_NAME = "World.snapshot";
+    public static final int MAGIC = 0x414C5753; // "ALWS"
+    public static final int VERSION = 3;
+    private static final int NONE = -1;
+    private static final int WALL = -1;
+    private static final int DANGLING_BASE = -2; // Exit value for a missing room whose ID is string 0
+    private static final int WINDOW_SIZE = 1 << 28; // 256 MB
+
+    // Sequential reader over a snapshot file that maps the next window whenever a value
+    // would run past the end of the current one
+    private static class Input {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart; // File offset of the window's first byte
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0, WINDOW_SIZE);
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return window.getLong();
+        }
+
+        void get(byte[] bytes, int offset, int length) throws IOException {
+            ensure(length);
+            window.get(bytes, offset, length);
+        }
+
+        // Bytes left in the file (not just in the window)
+        long remaining() {
+            return size - windowStart - window.position();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                if (remaining() < bytes) {
+                    throw new BufferUnderflowException();
+                }
+                map(windowStart + window.position(), Math.max(WINDOW_SIZE, bytes));
+            }
+        }
+
+        private void map(long start, long length) throws IOException {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length, size - start));
+            windowStart = start;
+        }
+    }
+
+    private WorldSnapshot() {
+    }
+
+    // Method to get the snapshot path that belongs next to a given map file
+    public static Path snapshotPathFor(String roomFilePath) {
+        return Path.of(roomFilePath).toAbsolutePath().resolveSibling(DEFAULT_FILE_NAME);
+    }
+
+    // Method to parse the text files and write them out as a snapshot
+    public static GameMap compile(String roomFilePath, String itemFilePath, String puzzleFilePath,
+            String monsterFilePath, Path snapshotPath) throws IOException, InvalidRoomException {
+        GameMap map = new GameMap(roomFilePath, itemFilePath, puzzleFilePath, monsterFilePath);
+        write(map, snapshotPath, roomFilePath, itemFilePath, puzzleFilePath, monsterFilePath);
+        return map;
+    }
+
+    // Method to load a snapshot; returns null when it is missing, stale or unreadable
+    public static GameMap read(Path snapshotPath, String roomFilePath, String itemFilePath,
+            String puzzleFilePath, String monsterFilePath) {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            Input buffer = new Input(channel);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            for (String source : new String[] {roomFilePath, itemFilePath, puzzleFilePath, monsterFilePath}) {
+                long size = buffer.getLong();
+                long lastModified = buffer.getLong();
+                Path path = Path.of(source);
+                if (Files.size(path) != size || Files.getLastModifiedTime(path).toMillis() != lastModified) {
+                    return null;
+                }
+            }
+            return readBody(buffer);
+        } catch (NoSuchFileException e) {
+            return null; // A source file is gone; let the text loader report it
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Ignoring unreadable world snapshot: " + snapshotPath);
+            return null;
+        }
+    }
+
+    private static GameMap readBody(Input buffer) throws IOException {
+        String[] strings = new String[readCount(buffer, 4)];
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < strings.length; i++) {
+            int length = readCount(buffer, 1);
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        Item[] itemRecords = new Item[readCount(buffer, 16)];
+        Map<String, Item> items = new HashMap<>();
+        for (int i = 0; i < itemRecords.length; i++) {
+            Item item = new Item(strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(), buffer.getInt());
+            itemRecords[i] = item;
+            items.put(item.getName(), item);
+        }
+
+        Puzzle[] puzzleRecords = new Puzzle[readCount(buffer, 12)];
+        Map<String, Puzzle> puzzles = new HashMap<>();
+        for (int i = 0; i < puzzleRecords.length; i++) {
+            Puzzle puzzle = new Puzzle(strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()]);
+            puzzleRecords[i] = puzzle;
+            puzzles.put(puzzle.getPuzzleID(), puzzle);
+        }
+
+        Monster[] monsterRecords = new Monster[readCount(buffer, 24)];
+        Map<String, Monster> monsters = new HashMap<>();
+        for (int i = 0; i < monsterRecords.length; i++) {
+            Monster monster = new Monster(strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(),
+                    buffer.getInt(), buffer.getInt(), strings[buffer.getInt()]);
+            monsterRecords[i] = monster;
+            monsters.put(monster.getName(), monster);
+        }
+
+        int roomCount = readCount(buffer, 44);
+        WorldGraph graph = new WorldGraph(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            String roomID = strings[buffer.getInt()];
+            String name = strings[buffer.getInt()];
+            String description = strings[buffer.getInt()];
+            boolean isVisited = buffer.getInt() != 0;
+            int room = graph.addLinkedRoom(roomID, name, isVisited, description,
+                    readExit(buffer, graph, strings, roomCount), readExit(buffer, graph, strings, roomCount),
+                    readExit(buffer, graph, strings, roomCount), readExit(buffer, graph, strings, roomCount));
+            int item = buffer.getInt();
+            int puzzle = buffer.getInt();
+            int monster = buffer.getInt();
+            if (item != NONE) {
+                graph.addItem(room, itemRecords[item]);
+            }
+            if (puzzle != NONE) {
+                graph.setPuzzle(room, puzzleRecords[puzzle]);
+            }
+            if (monster != NONE) {
+                graph.setMonster(room, monsterRecords[monster]);
+            }
+        }
+
+        List<WorldValidator.Finding> missingReferences = new ArrayList<>();
+        int missingCount = readCount(buffer, 12);
+        for (int i = 0; i < missingCount; i++) {
+            missingReferences.add(new WorldValidator.Finding(WorldValidator.Kind.valueOf(strings[buffer.getInt()]),
+                    strings[buffer.getInt()], strings[buffer.getInt()]));
+        }
+        return new GameMap(graph, items, puzzles, monsters, missingReferences);
+    }
+
+    // Reads an exit and turns it into the graph's exit value
+    private static int readExit(Input buffer, WorldGraph graph, String[] strings, int roomCount)
+            throws IOException {
+        int exit = buffer.getInt();
+        if (exit >= roomCount) {
+            throw new IllegalArgumentException("Exit to room " + exit + " of " + roomCount);
+        }
+        if (exit >= 0) {
+            return exit;
+        }
+        return exit == WALL ? WorldGraph.WALL : graph.danglingExit(strings[DANGLING_BASE - exit]);
+    }
+
+    // Reads a count (or a length) and checks that the rest of the file can hold that many
+    // entries of at least bytesPerEntry bytes, so a damaged file cannot ask for a negative
+    // or huge array
+    private static int readCount(Input buffer, int bytesPerEntry) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * bytesPerEntry > buffer.remaining()) {
+            throw new IllegalArgumentException("Count " + count + " does not fit in the rest of the snapshot");
+        }
+        return count;
+    }
+
+    // Method to write a loaded map to a snapshot file, stamped with its source files
+    public static void write(GameMap map, Path snapshotPath, String... sourceFilePaths) throws IOException {
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<Object, Integer> itemIndexes = new IdentityHashMap<>();
+        Map<Object, Integer> puzzleIndexes = new IdentityHashMap<>();
+        Map<Object, Integer> monsterIndexes = new IdentityHashMap<>();
+
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (String source : sourceFilePaths) {
+                Path path = Path.of(source);
+                out.writeLong(Files.size(path));
+                out.writeLong(Files.getLastModifiedTime(path).toMillis());
+            }
+
+            // Intern every string first so the table can be written before the records
+            for (Item item : map.getItemCatalog().values()) {
+                intern(strings, item.getName());
+                intern(strings, item.getDescription());
+            }
+            for (Puzzle puzzle : map.getPuzzleCatalog().values()) {
+                intern(strings, puzzle.getPuzzleID());
+                intern(strings, puzzle.getDescription());
+                intern(strings, puzzle.getSolution());
+            }
+            for (Monster monster : map.getMonsterCatalog().values()) {
+                intern(strings, monster.getName());
+                intern(strings, monster.getDescription());
+                intern(strings, monster.getItemDrop());
+            }
+            WorldGraph graph = map.getGraph();
+            for (int room = 0; room < graph.getRoomCount(); room++) {
+                intern(strings, graph.getRoomID(room));
+                intern(strings, graph.getName(room));
+                intern(strings, graph.getDescription(room));
+                for (int direction = WorldGraph.NORTH; direction <= WorldGraph.WEST; direction++) {
+                    if (graph.getExit(room, direction) < WorldGraph.WALL) {
+                        intern(strings, graph.getExitID(room, direction)); // Only exits to missing rooms need their ID
+                    }
+                }
+            }
+            for (WorldValidator.Finding finding : map.getMissingReferences()) {
+                intern(strings, finding.getKind().name());
+                intern(strings, finding.getRoomID());
+                intern(strings, finding.getMessage());
+            }
+
+            out.writeInt(strings.size());
+            for (String value : strings.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(map.getItemCatalog().size());
+            for (Item item : map.getItemCatalog().values()) {
+                itemIndexes.put(item, itemIndexes.size());
+                out.writeInt(strings.get(item.getName()));
+                out.writeInt(strings.get(item.getDescription()));
+                out.writeInt(item.getAttackPoints());
+                out.writeInt(item.getHealPoints());
+            }
+
+            out.writeInt(map.getPuzzleCatalog().size());
+            for (Puzzle puzzle : map.getPuzzleCatalog().values()) {
+                puzzleIndexes.put(puzzle, puzzleIndexes.size());
+                out.writeInt(strings.get(puzzle.getPuzzleID()));
+                out.writeInt(strings.get(puzzle.getDescription()));
+                out.writeInt(strings.get(puzzle.getSolution()));
+            }
+
+            out.writeInt(map.getMonsterCatalog().size());
+            for (Monster monster : map.getMonsterCatalog().values()) {
+                monsterIndexes.put(monster, monsterIndexes.size());
+                out.writeInt(strings.get(monster.getName()));
+                out.writeInt(strings.get(monster.getDescription()));
+                out.writeInt(monster.getHealth());
+                out.writeInt(monster.getAttackPower());
+                out.writeInt(monster.getDefense());
+                out.writeInt(strings.get(monster.getItemDrop()));
+            }
+
+            out.writeInt(graph.getRoomCount());
+            for (int room = 0; room < graph.getRoomCount(); room++) {
+                out.writeInt(strings.get(graph.getRoomID(room)));
+                out.writeInt(strings.get(graph.getName(room)));
+                out.writeInt(strings.get(graph.getDescription(room)));
+                out.writeInt(graph.isVisited(room) ? 1 : 0);
+                for (int direction = WorldGraph.NORTH; direction <= WorldGraph.WEST; direction++) {
+                    int exit = graph.getExit(room, direction);
+                    if (exit >= 0) {
+                        out.writeInt(exit);
+                    } else {
+                        String exitID = graph.getExitID(room, direction);
+                        out.writeInt(exit == WorldGraph.WALL ? WALL : DANGLING_BASE - strings.get(exitID));
+                    }
+                }
+                out.writeInt(graph.hasItems(room) ? itemIndexes.getOrDefault(graph.getItems(room)[0], NONE) : NONE);
+                out.writeInt(graph.hasPuzzle(room) ? puzzleIndexes.getOrDefault(graph.getPuzzle(room), NONE) : NONE);
+                out.writeInt(graph.hasMonster(room) ? monsterIndexes.getOrDefault(graph.getMonster(room), NONE) : NONE);
+            }
+
+            out.writeInt(map.getMissingReferences().size());
+            for (WorldValidator.Finding finding : map.getMissingReferences()) {
+                out.writeInt(strings.get(finding.getKind().name()));
+                out.writeInt(strings.get(finding.getRoomID()));
+                out.writeInt(strings.get(finding.getMessage()));
+            }
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void intern(Map<String, Integer> strings, String value) {
+        strings.putIfAbsent(value, strings.size());
+    }
+}
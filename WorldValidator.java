@@ -0,0 +1,406 @@
+/*
+ * The WorldValidator class checks a loaded world for the mistakes that would
+ * otherwise only show up during play, as "wandered off the map" or a missing item:
+ *   - DANGLING_EXIT: an exit to a room ID that is not in the map;
+ *   - ASYMMETRIC_EXIT: A leads east to B, but B's west exit does not lead back to A;
+ *   - DUPLICATE_ROOM: two rooms with the same ID (only the first can be reached);
+ *   - MISSING_START_ROOM / UNREACHABLE_REGION: rooms that cannot be reached from
+ *     room 1, where every game starts, grouped into connected regions;
+ *   - MISSING_ITEM / MISSING_PUZZLE / MISSING_MONSTER: a room naming a catalog entry
+ *     that does not exist (recorded by GameMap while linking; not kept in snapshots);
+ *   - UNUSED_ITEM / UNUSED_PUZZLE / UNUSED_MONSTER: catalog entries no room uses
+ *     (an item a monster drops counts as used). These are warnings, the rest errors.
+ *
+ * The room checks run over the exit table in fixed-size chunks on the common
+ * fork-join pool, and the reachability search expands large frontiers in parallel
+ * too (level by level, marking rooms in a shared atomic bit set). Chunk results are
+ * merged in room order, so the report is the same on any number of cores. Only the
+ * first MAX_FINDINGS_PER_KIND findings of each kind are kept; all are counted.
+ * */
+
+package model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+public class WorldValidator {
+    public static final String START_ROOM_ID = "1";
+    public static final int MAX_FINDINGS_PER_KIND = 1000;
+    private static final int CHUNK_SIZE = 16_384; // Rooms per parallel task
+    private static final String[] DIRECTIONS = {"north", "east", "south", "west"};
+
+    public enum Kind {
+        DANGLING_EXIT(true),
+        ASYMMETRIC_EXIT(true),
+        DUPLICATE_ROOM(true),
+        MISSING_START_ROOM(true),
+        UNREACHABLE_REGION(true),
+        MISSING_ITEM(true),
+        MISSING_PUZZLE(true),
+        MISSING_MONSTER(true),
+        UNUSED_ITEM(false),
+        UNUSED_PUZZLE(false),
+        UNUSED_MONSTER(false);
+
+        private final boolean error;
+
+        Kind(boolean error) {
+            this.error = error;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+    }
+
+    // One problem found in the world: its kind, the room it is about (null for a catalog
+    // entry) and a readable description
+    public static class Finding {
+        private final Kind kind;
+        private final String roomID;
+        private final String message;
+
+        public Finding(Kind kind, String roomID, String message) {
+            this.kind = kind;
+            this.roomID = roomID;
+            this.message = message;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getRoomID() {
+            return roomID;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return (kind.isError() ? "ERROR " : "WARNING ") + kind + ": " + message;
+        }
+    }
+
+    // The result of a validation: every finding counted by kind, the first ones of each kind kept
+    public static class Report {
+        private final int roomCount;
+        private final Map<Kind, Long> counts = new EnumMap<>(Kind.class);
+        private final Map<Kind, List<Finding>> findings = new EnumMap<>(Kind.class);
+        private long elapsedNanos;
+
+        Report(int roomCount) {
+            this.roomCount = roomCount;
+        }
+
+        void add(Finding finding) {
+            counts.merge(finding.kind, 1L, Long::sum);
+            List<Finding> kept = findings.computeIfAbsent(finding.kind, kind -> new ArrayList<>());
+            if (kept.size() < MAX_FINDINGS_PER_KIND) {
+                kept.add(finding);
+            }
+        }
+
+        // Method to check whether the world has any errors (warnings do not count)
+        public boolean hasErrors() {
+            return getErrorCount() > 0;
+        }
+
+        public long getErrorCount() {
+            return counts.entrySet().stream().filter(e -> e.getKey().isError()).mapToLong(Map.Entry::getValue).sum();
+        }
+
+        public long getWarningCount() {
+            return counts.entrySet().stream().filter(e -> !e.getKey().isError()).mapToLong(Map.Entry::getValue).sum();
+        }
+
+        // Method to get how many findings of a kind there were (including ones not kept)
+        public long getCount(Kind kind) {
+            return counts.getOrDefault(kind, 0L);
+        }
+
+        // Method to get the kept findings, errors first, each kind in room order
+        public List<Finding> getFindings() {
+            List<Finding> all = new ArrayList<>();
+            findings.values().forEach(all::addAll);
+            return Collections.unmodifiableList(all);
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // Method to get a one-line summary, e.g. "1,000 rooms: 2 errors, 1 warning (4.1 ms)."
+        public String getSummary() {
+            return String.format("%,d rooms: %,d error%s, %,d warning%s (%.1f ms).", roomCount, getErrorCount(),
+                    getErrorCount() == 1 ? "" : "s", getWarningCount(), getWarningCount() == 1 ? "" : "s",
+                    elapsedNanos / 1e6);
+        }
+
+        // Method to write the summary, the count of each kind and every kept finding to a file
+        public void writeTo(Path path) throws IOException {
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                writer.write("World validation: " + getSummary());
+                writer.newLine();
+                for (Map.Entry<Kind, Long> entry : counts.entrySet()) {
+                    writer.write(String.format("  %-20s %,d", entry.getKey(), entry.getValue()));
+                    writer.newLine();
+                }
+                for (Map.Entry<Kind, List<Finding>> entry : findings.entrySet()) {
+                    writer.newLine();
+                    for (Finding finding : entry.getValue()) {
+                        writer.write(finding.toString());
+                        writer.newLine();
+                    }
+                    long hidden = getCount(entry.getKey()) - entry.getValue().size();
+                    if (hidden > 0) {
+                        writer.write(String.format("... and %,d more %s", hidden, entry.getKey()));
+                        writer.newLine();
+                    }
+                }
+            }
+        }
+    }
+
+    // What one chunk of rooms found, in room order, plus the catalog entries its rooms use
+    private static class ChunkResult {
+        private final List<Finding> findings = new ArrayList<>();
+        private final Set<String> usedItems = new HashSet<>();
+        private final Set<String> usedPuzzles = new HashSet<>();
+        private final Set<String> usedMonsters = new HashSet<>();
+    }
+
+    private final GameMap world;
+    private final WorldGraph graph;
+
+    public WorldValidator(GameMap world) {
+        this.world = world.getWorld();
+        this.graph = this.world.getGraph();
+    }
+
+    // Method to run every check and get the report
+    public Report validate() {
+        long start = System.nanoTime();
+        int roomCount = graph.getRoomCount();
+        Report report = new Report(roomCount);
+        int[] exits = graph.getExitTable();
+
+        int chunks = (roomCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        List<ChunkResult> results = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> checkRooms(exits, chunk * CHUNK_SIZE, Math.min(roomCount, (chunk + 1) * CHUNK_SIZE)))
+                .toList();
+        Set<String> usedItems = new HashSet<>();
+        Set<String> usedPuzzles = new HashSet<>();
+        Set<String> usedMonsters = new HashSet<>();
+        for (ChunkResult result : results) {
+            result.findings.forEach(report::add);
+            usedItems.addAll(result.usedItems);
+            usedPuzzles.addAll(result.usedPuzzles);
+            usedMonsters.addAll(result.usedMonsters);
+        }
+
+        int startRoom = graph.indexOf(START_ROOM_ID);
+        if (startRoom == WorldGraph.NO_ROOM) {
+            report.add(new Finding(Kind.MISSING_START_ROOM, null, "There is no room " + START_ROOM_ID
+                    + " to start the game in."));
+        } else {
+            findUnreachableRegions(exits, reachableFrom(exits, startRoom)).forEach(report::add);
+        }
+
+        world.getMissingReferences().forEach(report::add);
+
+        for (Monster monster : world.getMonsterCatalog().values()) {
+            if (usedMonsters.contains(monster.getName()) && monster.getItemDrop() != null) {
+                usedItems.add(monster.getItemDrop());
+            }
+        }
+        reportUnused(report, Kind.UNUSED_ITEM, "Item", world.getItemCatalog().keySet(), usedItems);
+        reportUnused(report, Kind.UNUSED_PUZZLE, "Puzzle", world.getPuzzleCatalog().keySet(), usedPuzzles);
+        reportUnused(report, Kind.UNUSED_MONSTER, "Monster", world.getMonsterCatalog().keySet(), usedMonsters);
+
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Checks the exits and IDs of the rooms in [from, to) and collects what they contain
+    private ChunkResult checkRooms(int[] exits, int from, int to) {
+        ChunkResult result = new ChunkResult();
+        for (int room = from; room < to; room++) {
+            String roomID = graph.getRoomID(room);
+            if (graph.indexOf(roomID) != room) {
+                result.findings.add(new Finding(Kind.DUPLICATE_ROOM, roomID, "Room " + roomID
+                        + " is defined more than once; only the first definition is used."));
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                int exit = exits[room * 4 + direction];
+                if (exit >= 0) {
+                    int back = exits[exit * 4 + ((direction + 2) & 3)];
+                    if (back != room) {
+                        result.findings.add(new Finding(Kind.ASYMMETRIC_EXIT, roomID, "Room " + roomID + " leads "
+                                + DIRECTIONS[direction] + " to room " + graph.getRoomID(exit) + ", but room "
+                                + graph.getRoomID(exit) + "'s " + DIRECTIONS[(direction + 2) & 3] + " exit leads to "
+                                + describeExit(exit, (direction + 2) & 3) + "."));
+                    }
+                } else if (exit != WorldGraph.WALL) {
+                    result.findings.add(new Finding(Kind.DANGLING_EXIT, roomID, "Room " + roomID + " leads "
+                            + DIRECTIONS[direction] + " to room " + graph.getExitID(room, direction)
+                            + ", which does not exist."));
+                }
+            }
+            if (graph.hasItems(room)) {
+                for (Item item : graph.getItems(room)) {
+                    result.usedItems.add(item.getName());
+                }
+            }
+            if (graph.hasPuzzle(room)) {
+                result.usedPuzzles.add(graph.getPuzzle(room).getPuzzleID());
+            }
+            if (graph.hasMonster(room)) {
+                result.usedMonsters.add(graph.getMonster(room).getName());
+            }
+        }
+        return result;
+    }
+
+    private String describeExit(int room, int direction) {
+        int exit = graph.getExit(room, direction);
+        return exit == WorldGraph.WALL ? "a wall" : "room " + graph.getExitID(room, direction);
+    }
+
+    // Breadth-first search from the start room, one level at a time. Large levels are split
+    // into chunks expanded in parallel; a room is claimed by whichever chunk sets its bit first.
+    private BitSet reachableFrom(int[] exits, int startRoom) {
+        AtomicLongArray reached = new AtomicLongArray((graph.getRoomCount() + 63) >>> 6);
+        claim(reached, startRoom);
+        int[] frontier = {startRoom};
+        while (frontier.length > 0) {
+            int[] level = frontier;
+            if (level.length <= CHUNK_SIZE) {
+                frontier = expand(exits, reached, level, 0, level.length);
+            } else {
+                int chunks = (level.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+                frontier = IntStream.range(0, chunks).parallel()
+                        .mapToObj(chunk -> expand(exits, reached, level, chunk * CHUNK_SIZE,
+                                Math.min(level.length, (chunk + 1) * CHUNK_SIZE)))
+                        .flatMapToInt(Arrays::stream)
+                        .toArray();
+            }
+        }
+        long[] words = new long[reached.length()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = reached.get(i);
+        }
+        return BitSet.valueOf(words);
+    }
+
+    // Returns the rooms first reached from level[from, to)
+    private static int[] expand(int[] exits, AtomicLongArray reached, int[] level, int from, int to) {
+        int[] next = new int[Math.max(16, (to - from) * 2)];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int room = level[i];
+            for (int direction = 0; direction < 4; direction++) {
+                int exit = exits[room * 4 + direction];
+                if (exit >= 0 && claim(reached, exit)) {
+                    if (count == next.length) {
+                        next = Arrays.copyOf(next, count * 2);
+                    }
+                    next[count++] = exit;
+                }
+            }
+        }
+        return Arrays.copyOf(next, count);
+    }
+
+    // Sets a room's bit; returns false if it was already set
+    private static boolean claim(AtomicLongArray reached, int room) {
+        int word = room >>> 6;
+        long bit = 1L << room;
+        long old;
+        do {
+            old = reached.get(word);
+            if ((old & bit) != 0) {
+                return false;
+            }
+        } while (!reached.compareAndSet(word, old, old | bit));
+        return true;
+    }
+
+    // Groups the rooms that were not reached into regions joined by exits in either direction
+    // (union-find), and reports each region once, by its first room
+    private List<Finding> findUnreachableRegions(int[] exits, BitSet reached) {
+        int roomCount = graph.getRoomCount();
+        List<Finding> regions = new ArrayList<>();
+        if (reached.cardinality() == roomCount) {
+            return regions;
+        }
+        for (int room = reached.nextClearBit(0); room < roomCount; room = reached.nextClearBit(room + 1)) {
+            if (graph.indexOf(graph.getRoomID(room)) != room) {
+                reached.set(room); // A second definition of an ID; already reported as DUPLICATE_ROOM
+            }
+        }
+        int[] parent = new int[roomCount];
+        for (int room = reached.nextClearBit(0); room < roomCount; room = reached.nextClearBit(room + 1)) {
+            parent[room] = room;
+        }
+        for (int room = reached.nextClearBit(0); room < roomCount; room = reached.nextClearBit(room + 1)) {
+            for (int direction = 0; direction < 4; direction++) {
+                int exit = exits[room * 4 + direction];
+                if (exit >= 0 && !reached.get(exit)) {
+                    int a = find(parent, room);
+                    int b = find(parent, exit);
+                    if (a != b) {
+                        parent[Math.max(a, b)] = Math.min(a, b); // The root is the region's first room
+                    }
+                }
+            }
+        }
+        int[] sizes = new int[roomCount];
+        for (int room = reached.nextClearBit(0); room < roomCount; room = reached.nextClearBit(room + 1)) {
+            sizes[find(parent, room)]++;
+        }
+        for (int room = reached.nextClearBit(0); room < roomCount; room = reached.nextClearBit(room + 1)) {
+            if (parent[room] == room) {
+                String roomID = graph.getRoomID(room);
+                regions.add(new Finding(Kind.UNREACHABLE_REGION, roomID, sizes[room] == 1
+                        ? "Room " + roomID + " cannot be reached from room " + START_ROOM_ID + "."
+                        : String.format("Room %s and %,d connected room%s cannot be reached from room %s.", roomID,
+                                sizes[room] - 1, sizes[room] == 2 ? "" : "s", START_ROOM_ID)));
+            }
+        }
+        return regions;
+    }
+
+    private static int find(int[] parent, int room) {
+        while (parent[room] != room) {
+            parent[room] = parent[parent[room]];
+            room = parent[room];
+        }
+        return room;
+    }
+
+    private static void reportUnused(Report report, Kind kind, String label, Set<String> catalog, Set<String> used) {
+        for (String name : new TreeSet<>(catalog)) {
+            if (!used.contains(name)) {
+                report.add(new Finding(kind, null, label + " '" + name + "' is not used by any room."));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * JMH benchmark for a complete headless fight: a fresh session picks up and equips
+ * the Vorpal Blade, fights the Jabberwock in room 1 to the end through
+ * GameController (with all output discarded) and quits.
+ * */
+
+package benchmarks;
+
+import controller.GameController;
+import model.GameMap;
+import model.InvalidRoomException;
+import model.GameRandom;
+import model.Player;
+import view.GameView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombatBenchmark {
+    @Param({"1000", "100000"})
+    private int roomCount;
+
+    private GameMap world;
+    private ScriptIO script;
+    private Path dir; // Generated world, deleted after the trial
+
+    @Setup
+    public void loadWorld() throws IOException, InvalidRoomException {
+        dir = WorldFiles.writeGridWorld(roomCount);
+        world = new GameMap(WorldFiles.file(dir, "Map.txt"), WorldFiles.file(dir, "Item.txt"),
+                WorldFiles.file(dir, "Puzzle.txt"), WorldFiles.file(dir, "Monsters.txt"));
+        // The Jabberwock has 120 HP and 2 defense: seven 18-damage strikes with the blade
+        script = new ScriptIO("pickup vorpal blade", "equip vorpal blade", "fight",
+                "attack", "attack", "attack", "attack", "attack", "attack", "attack", "exit");
+    }
+
+    @Benchmark
+    public Player fightRound() throws InvalidRoomException {
+        script.rewind();
+        Player player = new Player(world.newSession());
+        GameView view = new GameView(script, false);
+        view.setOutputDiscarded(true);
+        new GameController(player, view, new GameRandom(1)).startGame();
+        return player;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorld() throws IOException {
+        WorldFiles.delete(dir);
+    }
+}
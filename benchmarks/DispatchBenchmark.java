@@ -0,0 +1,64 @@
+/*
+ * JMH benchmark for CommandRegistry.dispatch as the number of registered commands
+ * grows, using a mix of short and argument-carrying inputs like the ones typed
+ * during play. The time per dispatch should stay flat.
+ * Each registry records into a GameMetrics of its own, so the thousands of dummy
+ * commands never show up in the JVM-wide metrics.
+ * */
+
+package benchmarks;
+
+import controller.CommandRegistry;
+import metrics.GameMetrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final String[] INPUTS = {"n", "pickup vorpal blade", "explore", "Equip Teapot Cannon",
+        "solve mad hatter", "west", "examine monster", "unknown words here"};
+
+    @Param({"10", "100", "1000", "10000"})
+    private int commandCount;
+
+    private CommandRegistry registry;
+    private long handled; // Keeps the JIT from removing the handlers
+    private int nextInput;
+
+    @Setup
+    public void registerCommands() {
+        registry = new CommandRegistry(new GameMetrics());
+        for (String direction : new String[] {"north", "east", "south", "west"}) {
+            registry.register(direction, argument -> handled++, direction.substring(0, 1));
+        }
+        for (String word : new String[] {"pickup", "explore", "equip", "solve", "examine"}) {
+            registry.register(word, argument -> handled += argument.length());
+        }
+        for (int i = registry.getCommands().size(); i < commandCount; i++) {
+            registry.register("command" + i, argument -> handled++);
+        }
+    }
+
+    @Benchmark
+    public boolean dispatch() {
+        nextInput = (nextInput + 1) & (INPUTS.length - 1);
+        return registry.dispatch(INPUTS[nextInput]);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * JMH benchmark for picking up and dropping an item in a room that holds many items,
+ * across room sizes. With the name-indexed ItemBag this should not depend on the
+ * number of items.
+ * */
+
+package benchmarks;
+
+import model.GameMap;
+import model.InvalidRoomException;
+import model.Item;
+import model.Player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int itemCount;
+
+    private Player player;
+    private String target;
+    private Path dir; // Generated world, deleted after the trial
+
+    @Setup
+    public void fillRoom() throws IOException, InvalidRoomException {
+        dir = WorldFiles.writeGridWorld(100);
+        GameMap world = new GameMap(WorldFiles.file(dir, "Map.txt"), WorldFiles.file(dir, "Item.txt"),
+                WorldFiles.file(dir, "Puzzle.txt"), WorldFiles.file(dir, "Monsters.txt"));
+        player = new Player(world.newSession());
+        player.setOutput(message -> { });
+        for (int i = 0; i < itemCount; i++) {
+            player.getCurrentRoom().addItem(new Item("Trinket " + i, "A loot-heavy test item.", i % 7, i % 5));
+        }
+        target = "trinket " + (itemCount / 2); // Looked up case-insensitively
+    }
+
+    @Benchmark
+    public int pickUpAndDrop() {
+        player.pickUpItem(target);
+        player.dropItem(target);
+        return player.getInventory().size();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorld() throws IOException {
+        WorldFiles.delete(dir);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * JMH benchmark for CommandJournal: appending typed commands to the journal,
+ * including a checkpoint (of a small SaveGame) every CHECKPOINT_INTERVAL commands,
+ * as one game session does.
+ * */
+
+package benchmarks;
+
+import model.CommandJournal;
+import model.GameMap;
+import model.InvalidRoomException;
+import model.Player;
+import model.SaveGame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private static final String[] COMMANDS = {"pickup vorpal blade", "equip vorpal blade", "e", "fight", "attack",
+        "explore", "s", "w", "solve mad hatter", "inventory"};
+
+    private CommandJournal journal;
+    private byte[] checkpoint;
+    private int next;
+    private Path dir; // Generated world, deleted after the trial
+    private Path journalDir;
+
+    @Setup
+    public void openJournal() throws IOException, InvalidRoomException {
+        dir = WorldFiles.writeGridWorld(100);
+        GameMap world = new GameMap(WorldFiles.file(dir, "Map.txt"), WorldFiles.file(dir, "Item.txt"),
+                WorldFiles.file(dir, "Puzzle.txt"), WorldFiles.file(dir, "Monsters.txt"));
+        Player player = new Player(world.newSession());
+        player.setOutput(message -> { });
+        player.pickUpItem("vorpal blade");
+        checkpoint = SaveGame.write(player, 1);
+        journalDir = Files.createTempDirectory("alice-journal-");
+        journal = new CommandJournal(journalDir.resolve(CommandJournal.DEFAULT_FILE_NAME), 1, world.getFingerprint());
+    }
+
+    @Benchmark
+    public void appendCommand() throws IOException {
+        journal.append(COMMANDS[next++ % COMMANDS.length]);
+        if (journal.isCheckpointDue()) {
+            journal.checkpoint(checkpoint);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeJournal() throws IOException {
+        journal.close(true);
+        WorldFiles.delete(journalDir);
+        WorldFiles.delete(dir);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * JMH benchmark for building a GameMap from generated text files (parallel text
+ * loader) and from a compiled World.snapshot, across world sizes.
+ * */
+
+package benchmarks;
+
+import model.GameMap;
+import model.InvalidRoomException;
+import model.WorldSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int roomCount;
+
+    private String mapFile;
+    private String itemFile;
+    private String puzzleFile;
+    private String monsterFile;
+    private Path snapshot;
+    private Path dir; // Generated world, deleted after the trial
+
+    @Setup
+    public void writeWorld() throws IOException, InvalidRoomException {
+        dir = WorldFiles.writeGridWorld(roomCount);
+        mapFile = WorldFiles.file(dir, "Map.txt");
+        itemFile = WorldFiles.file(dir, "Item.txt");
+        puzzleFile = WorldFiles.file(dir, "Puzzle.txt");
+        monsterFile = WorldFiles.file(dir, "Monsters.txt");
+        snapshot = WorldSnapshot.snapshotPathFor(mapFile);
+        WorldSnapshot.compile(mapFile, itemFile, puzzleFile, monsterFile, snapshot);
+    }
+
+    @Benchmark
+    public GameMap loadTextFiles() throws IOException, InvalidRoomException {
+        return new GameMap(mapFile, itemFile, puzzleFile, monsterFile);
+    }
+
+    @Benchmark
+    public GameMap loadSnapshot() {
+        return WorldSnapshot.read(snapshot, mapFile, itemFile, puzzleFile, monsterFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorld() throws IOException {
+        WorldFiles.delete(dir);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * JMH benchmark for GameMap.getRoom and for a full move (Player.getNextRoomID +
+ * Player.moveTo) across world sizes. Both should stay flat as the world grows.
+ * Lookups go through a session, as they do in a game: the template world builds a
+ * fresh read-only Room on every call, while a session keeps the Room it created on
+ * first touch, so after warmup getRoom measures the lookup alone.
+ * */
+
+package benchmarks;
+
+import model.GameMap;
+import model.InvalidRoomException;
+import model.Player;
+import model.Room;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MovementBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int roomCount;
+
+    private GameMap world;
+    private GameMap session; // Where getRoom looks rooms up
+    private Player player;
+    private String[] roomIDs; // Random IDs to look up, so lookups are not all cache hits
+    private int nextRoom;
+    private boolean eastNext;
+    private Path dir; // Generated world, deleted after the trial
+
+    @Setup
+    public void loadWorld() throws IOException, InvalidRoomException {
+        dir = WorldFiles.writeGridWorld(roomCount);
+        world = new GameMap(WorldFiles.file(dir, "Map.txt"), WorldFiles.file(dir, "Item.txt"),
+                WorldFiles.file(dir, "Puzzle.txt"), WorldFiles.file(dir, "Monsters.txt"));
+        session = world.newSession();
+        player = new Player(world.newSession());
+        player.setOutput(message -> { });
+
+        Random random = new Random(42);
+        roomIDs = new String[4096];
+        for (int i = 0; i < roomIDs.length; i++) {
+            roomIDs[i] = String.valueOf(1 + random.nextInt(roomCount));
+        }
+    }
+
+    @Benchmark
+    public Room getRoom() throws InvalidRoomException {
+        nextRoom = (nextRoom + 1) & (roomIDs.length - 1);
+        return session.getRoom(roomIDs[nextRoom]);
+    }
+
+    @Benchmark
+    public Room move() throws InvalidRoomException {
+        eastNext = !eastNext;
+        player.moveTo(player.getNextRoomID(eastNext ? "e" : "w"));
+        return player.getCurrentRoom();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorld() throws IOException {
+        WorldFiles.delete(dir);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * JMH benchmark for RoutingTable: the time to build it for a world, and the time to
+ * find the shortest route between two random rooms (the 'goto' command), across
+ * world sizes. Route queries should stay well under a millisecond on 100k rooms.
+ * */
+
+package benchmarks;
+
+import model.GameMap;
+import model.InvalidRoomException;
+import model.RoutingTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RouteBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int roomCount;
+
+    private GameMap world;
+    private RoutingTable routes;
+    private String[] fromIDs; // Random start rooms and target room names, in pairs
+    private String[] targetNames;
+    private int next;
+    private Path dir; // Generated world, deleted after the trial
+
+    @Setup
+    public void loadWorld() throws IOException, InvalidRoomException {
+        dir = WorldFiles.writeGridWorld(roomCount);
+        world = new GameMap(WorldFiles.file(dir, "Map.txt"), WorldFiles.file(dir, "Item.txt"),
+                WorldFiles.file(dir, "Puzzle.txt"), WorldFiles.file(dir, "Monsters.txt"));
+        routes = world.getRoutingTable();
+
+        Random random = new Random(42);
+        fromIDs = new String[1024];
+        targetNames = new String[fromIDs.length];
+        for (int i = 0; i < fromIDs.length; i++) {
+            fromIDs[i] = String.valueOf(1 + random.nextInt(roomCount));
+            targetNames[i] = world.getGraph().getName(random.nextInt(roomCount));
+        }
+    }
+
+    @Benchmark
+    public List<String> findRoute() {
+        next = (next + 1) & (fromIDs.length - 1);
+        return routes.findRoute(fromIDs[next], targetNames[next]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public RoutingTable buildTable() {
+        return new RoutingTable(world.getGraph());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorld() throws IOException {
+        WorldFiles.delete(dir);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * The ScriptIO class is a GameIO that plays a fixed list of commands and throws all
+ * output away, so benchmarks can drive a full GameController headlessly.
+ * */
+
+package benchmarks;
+
+import view.GameIO;
+
+public class ScriptIO implements GameIO {
+    private final String[] lines;
+    private int next;
+
+    public ScriptIO(String... lines) {
+        this.lines = lines;
+    }
+
+    // Method to start the script again from its first line
+    public void rewind() {
+        next = 0;
+    }
+
+    @Override
+    public String readLine() {
+        return next < lines.length ? lines[next++] : null;
+    }
+
+    @Override
+    public void write(String text) {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
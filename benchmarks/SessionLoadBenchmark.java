@@ -0,0 +1,100 @@
+/*
+ * The SessionLoadBenchmark class starts a GameServer on a loopback port, parks a
+ * number of idle connections on it, and then plays many short scripted sessions
+ * concurrently, reporting sessions/second and heap used per connected session.
+ *
+ * Usage: java -cp <classes> benchmarks.SessionLoadBenchmark [idleSessions] [activeSessions] [clientThreads]
+ * Run it from the folder that holds Map.txt, Item.txt, Puzzle.txt and Monsters.txt.
+ * */
+
+package benchmarks;
+
+import server.GameServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SessionLoadBenchmark {
+    private static final byte[] SCRIPT = ("explore\npickup vorpal blade\nequip vorpal blade\ne\ns\nw\n"
+            + "solve mad hatter\nn\nexplore\nexit\n").getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        int idleSessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int activeSessions = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int clientThreads = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        try (GameServer server = new GameServer(0, "Map.txt", "Item.txt", "Puzzle.txt", "Monsters.txt")) {
+            Thread acceptor = new Thread(server::serve, "alice-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            InetAddress loopback = InetAddress.getLoopbackAddress();
+
+            long heapBefore = usedHeap();
+            List<Socket> idle = new ArrayList<>();
+            for (int i = 0; i < idleSessions; i++) {
+                idle.add(new Socket(loopback, server.getPort()));
+            }
+            while (server.getActiveSessionCount() < idleSessions) {
+                Thread.sleep(10);
+            }
+            long heapPerSession = idleSessions > 0 ? (usedHeap() - heapBefore) / idleSessions : 0;
+            System.out.println(idleSessions + " idle sessions, ~" + heapPerSession + " heap bytes each");
+
+            ExecutorService clients = Executors.newFixedThreadPool(clientThreads);
+            List<Future<Long>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < activeSessions; i++) {
+                results.add(clients.submit(() -> playScript(loopback, server.getPort())));
+            }
+            long bytes = 0;
+            for (Future<Long> result : results) {
+                bytes += result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.MINUTES);
+
+            System.out.printf("%d scripted sessions in %.2f s (%.0f sessions/s, %d bytes received)%n",
+                    activeSessions, seconds, activeSessions / seconds, bytes);
+            for (Socket socket : idle) {
+                socket.close();
+            }
+        }
+    }
+
+    // Method to play the script over one connection and return how many bytes came back
+    private static long playScript(InetAddress address, int port) throws IOException {
+        try (Socket socket = new Socket(address, port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(SCRIPT);
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+            return total;
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
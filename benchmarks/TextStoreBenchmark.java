@@ -0,0 +1,61 @@
+/*
+ * JMH benchmark for TextStore: reading a description that is in the decoded block
+ * cache (the room being shown again) and one from a random block of a million
+ * distinct descriptions (a room nobody has looked at for a while).
+ * */
+
+package benchmarks;
+
+import model.TextStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TextStoreBenchmark {
+    private static final int ENTRIES = 1_000_000;
+    private static final String[] PLACES = {"hall", "garden", "library", "cellar", "tower", "kitchen", "forest path"};
+
+    private TextStore store;
+    private int firstID;
+    private SplittableRandom random;
+
+    @Setup
+    public void fillStore() {
+        store = new TextStore();
+        for (int i = 0; i < ENTRIES; i++) {
+            int id = store.add("A " + PLACES[i % PLACES.length] + " where Alice finds clue number " + i
+                    + " scratched into the wall.");
+            if (i == 0) {
+                firstID = id;
+            }
+        }
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public String cachedDescription() {
+        return store.get(firstID);
+    }
+
+    @Benchmark
+    public String randomDescription() {
+        return store.get(random.nextInt(ENTRIES));
+    }
+}
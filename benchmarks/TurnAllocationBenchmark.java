@@ -0,0 +1,96 @@
+/*
+ * The TurnAllocationBenchmark class measures how many bytes the game allocates per
+ * turn, using the JVM's per-thread allocation counter (com.sun.management.ThreadMXBean).
+ * Each scenario plays a headless session through GameController with its output kept
+ * (only the final write is thrown away by ScriptIO), so the room banner, messages and
+ * prompt are all rendered as they would be for a player. A scenario is played with n
+ * and 2n repeats of its turn and the difference is divided by n, which leaves out the
+ * cost of starting the session.
+ *
+ * Usage: java -cp <classes> benchmarks.TurnAllocationBenchmark [rooms] [turns]
+ * */
+
+package benchmarks;
+
+import controller.GameController;
+import model.GameMap;
+import model.GameRandom;
+import model.Player;
+import view.GameView;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TurnAllocationBenchmark {
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int turns = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        Path dir = WorldFiles.writeGridWorld(rooms);
+        GameMap world = new GameMap(WorldFiles.file(dir, "Map.txt"), WorldFiles.file(dir, "Item.txt"),
+                WorldFiles.file(dir, "Puzzle.txt"), WorldFiles.file(dir, "Monsters.txt"));
+        WorldFiles.delete(dir); // Loaded; the files are no longer needed
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.printf("%,d rooms, %,d turns per scenario%n", rooms, turns);
+
+        // Room 1 holds the Vorpal Blade and the Jabberwock; room 2 (east) holds the Hatter's riddle
+        report(threads, world, "explore (room unchanged)", turns, new String[0], "explore");
+        report(threads, world, "inspect (room unchanged)", turns, new String[]{"pickup vorpal blade"},
+                "inspect vorpal blade");
+        report(threads, world, "walk e / w (rooms seen)", turns, new String[0], "e", "w");
+        report(threads, world, "drop / pickup (room changes)", turns, new String[]{"pickup vorpal blade"},
+                "drop vorpal blade", "pickup vorpal blade");
+    }
+
+    private static void report(com.sun.management.ThreadMXBean threads, GameMap world, String name, int turns,
+            String[] setup, String... turn) throws Exception {
+        String[] shortScript = script(setup, turn, turns);
+        String[] longScript = script(setup, turn, 2 * turns);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            play(world, shortScript);
+            play(world, longScript);
+        }
+
+        long[] shortRun = {Long.MAX_VALUE, Long.MAX_VALUE}; // Fewest bytes and nanoseconds seen
+        long[] longRun = {Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            measure(threads, world, shortScript, shortRun);
+            measure(threads, world, longScript, longRun);
+        }
+        int playedTurns = turns * turn.length;
+        System.out.printf("  %-30s %,8d bytes/turn %,8d ns/turn%n", name, (longRun[0] - shortRun[0]) / playedTurns,
+                (longRun[1] - shortRun[1]) / playedTurns);
+    }
+
+    private static void measure(com.sun.management.ThreadMXBean threads, GameMap world, String[] script, long[] best)
+            throws Exception {
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        play(world, script);
+        long nanos = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        best[0] = Math.min(best[0], bytes);
+        best[1] = Math.min(best[1], nanos);
+    }
+
+    private static String[] script(String[] setup, String[] turn, int repeats) {
+        List<String> lines = new ArrayList<>(Arrays.asList(setup));
+        for (int i = 0; i < repeats; i++) {
+            lines.addAll(Arrays.asList(turn));
+        }
+        lines.add("exit");
+        return lines.toArray(new String[0]);
+    }
+
+    // Plays one session with every command on its own prompt, as a player at the console would
+    private static void play(GameMap world, String[] script) throws Exception {
+        Player player = new Player(world.newSession());
+        new GameController(player, new GameView(new ScriptIO(script), false), new GameRandom(1)).startGame();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * The WorldFiles class writes generated worlds for the benchmarks with WorldGenerator:
+ * a square grid of rooms with reciprocal exits and random items, with a Vorpal Blade
+ * and a Jabberwock in room 1 and the Hatter's riddle in room 2, so every size plays
+ * the same opening. There are no other monsters or puzzles, so a walk is never blocked.
+ * */
+
+package benchmarks;
+
+import generator.WorldGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public final class WorldFiles {
+    private static final long SEED = 42;
+
+    private WorldFiles() {
+    }
+
+    // Method to write a grid world into a new temporary folder
+    public static Path writeGridWorld(int roomCount) throws IOException {
+        Path dir = Files.createTempDirectory("alice-world-");
+        writeGridWorld(dir, roomCount);
+        return dir;
+    }
+
+    // Method to write Map.txt, Item.txt, Puzzle.txt and Monsters.txt for a grid world
+    public static void writeGridWorld(Path dir, int roomCount) throws IOException {
+        WorldGenerator generator = new WorldGenerator(roomCount, WorldGenerator.Layout.GRID, SEED);
+        generator.addItem("Vorpal Blade", "A long silver blade.", 20, 0);
+        generator.addItem("Roses", "A bloom of mystical roses.", 0, 20);
+        generator.addPuzzle("1", "Who has a hat and loves to chat?", "mad hatter");
+        generator.addMonster("Jabberwock", "A beast with jaws that bite.", 120, 5, 2, "Roses");
+        generator.setItemDensity(0.1);
+        generator.setMonsterDensity(0);
+        generator.setPuzzleDensity(0);
+        generator.placeItem(1, "Vorpal Blade");
+        generator.placeMonster(1, "Jabberwock");
+        generator.placePuzzle(2, "1");
+        generator.write(dir);
+    }
+
+    // Method to delete a folder written by writeGridWorld (or any temporary folder), with its files
+    public static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // Method to get the path of one of the world files in a folder
+    public static String file(Path dir, String name) {
+        return dir.resolve(name).toString();
+    }
+}